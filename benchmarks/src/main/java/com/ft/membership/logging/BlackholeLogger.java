@@ -0,0 +1,187 @@
+package com.ft.membership.logging;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.helpers.MarkerIgnoringBase;
+
+/**
+ * A stand-in slf4j logger which hands every message to a JMH {@link Blackhole}, so that benchmarks measure the cost of
+ * building a log line rather than the cost of an appender.
+ */
+class BlackholeLogger extends MarkerIgnoringBase {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Blackhole blackhole;
+    private final boolean enabled;
+
+    BlackholeLogger(final Blackhole blackhole, final boolean enabled) {
+        this.name = "benchmark";
+        this.blackhole = blackhole;
+        this.enabled = enabled;
+    }
+
+    private void consume(final Object msg) {
+        blackhole.consume(msg);
+    }
+
+    private void consume(final Object msg, final Object arg) {
+        blackhole.consume(msg);
+        blackhole.consume(arg);
+    }
+
+    private void consume(final Object msg, final Object arg1, final Object arg2) {
+        blackhole.consume(msg);
+        blackhole.consume(arg1);
+        blackhole.consume(arg2);
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void trace(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void trace(final String format, final Object... arguments) {
+        consume(format, arguments);
+    }
+
+    @Override
+    public void trace(final String msg, final Throwable t) {
+        consume(msg, t);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void debug(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void debug(final String format, final Object... arguments) {
+        consume(format, arguments);
+    }
+
+    @Override
+    public void debug(final String msg, final Throwable t) {
+        consume(msg, t);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void info(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void info(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void info(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void info(final String format, final Object... arguments) {
+        consume(format, arguments);
+    }
+
+    @Override
+    public void info(final String msg, final Throwable t) {
+        consume(msg, t);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void warn(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void warn(final String format, final Object... arguments) {
+        consume(format, arguments);
+    }
+
+    @Override
+    public void warn(final String msg, final Throwable t) {
+        consume(msg, t);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void error(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void error(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void error(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void error(final String format, final Object... arguments) {
+        consume(format, arguments);
+    }
+
+    @Override
+    public void error(final String msg, final Throwable t) {
+        consume(msg, t);
+    }
+}
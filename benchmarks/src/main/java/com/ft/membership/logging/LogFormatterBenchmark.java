@@ -0,0 +1,75 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Operation.operation;
+
+import com.ft.membership.logging.Operation.OperationBuilder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.event.Level;
+
+/**
+ * Cost of the two message layouts in isolation: building the success line of an operation, without the level check
+ * or the call to slf4j.
+ *
+ * <p>The layouts never consult the logger level, so the logger is only enabled or disabled to keep the parameter
+ * space aligned with {@link OperationBenchmark}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogFormatterBenchmark {
+
+    @Param({"true", "false"})
+    boolean enabled;
+
+    @Param({"0", "5", "20"})
+    int parameters;
+
+    private LogFormatter formatter;
+    private Operation textOperation;
+    private Operation jsonOperation;
+    private Yield textYield;
+    private Yield jsonYield;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setup(final Blackhole blackhole) {
+        final BlackholeLogger logger = new BlackholeLogger(blackhole, enabled);
+        formatter = LogFormatter.forActorOrLogger(logger);
+        textOperation = builder().initiate(logger);
+        jsonOperation = builder().jsonLayout().initiate(logger);
+        textYield = textOperation.wasSuccessful().yielding("result", "ok");
+        jsonYield = jsonOperation.wasSuccessful().yielding("result", "ok");
+    }
+
+    private OperationBuilder builder() {
+        final OperationBuilder builder = operation("benchmark");
+        for (int i = 0; i < parameters; i++) {
+            builder.with("key" + i, OperationBenchmark.sampleValue(i));
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public String textLayout() {
+        return formatter.buildYieldMessage(textOperation, textYield, true, true, Level.INFO, LogClock.millis());
+    }
+
+    @Benchmark
+    public String jsonLayout() {
+        return formatter.buildYieldMessage(jsonOperation, jsonYield, true, true, Level.INFO, LogClock.millis());
+    }
+}
@@ -0,0 +1,32 @@
+package com.ft.membership.logging;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark single-threaded and then contended, with the <tt>gc</tt> profiler attached so that allocation
+ * per operation is reported alongside the timings.
+ *
+ * <p>Any standard JMH command line options (e.g. a benchmark filter, or <tt>-p parameters=5</tt>) are passed on.</p>
+ */
+public class LoggingBenchmarks {
+
+    private static final int[] THREADS = {1, 4};
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (int threads : THREADS) {
+            final Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Operation.operation;
+
+import com.ft.membership.logging.Operation.OperationBuilder;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+
+/**
+ * Cost of the public log paths, from building an operation through to the message handed to slf4j.
+ *
+ * <p>Each path is measured with the logger enabled and disabled, for the text and JSON layouts, and with 0, 5 or 20
+ * starting parameters on the operation.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationBenchmark {
+
+    @Param({"true", "false"})
+    boolean enabled;
+
+    @Param({"0", "5", "20"})
+    int parameters;
+
+    @Param({"text", "json"})
+    String layout;
+
+    private Logger logger;
+    private String[] keys;
+    private Object[] values;
+    private Operation operation;
+    private Exception exception;
+
+    @Setup(Level.Trial)
+    public void setup(final Blackhole blackhole) {
+        logger = new BlackholeLogger(blackhole, enabled);
+        keys = new String[parameters];
+        values = new Object[parameters];
+        for (int i = 0; i < parameters; i++) {
+            keys[i] = "key" + i;
+            values[i] = sampleValue(i);
+        }
+        operation = builder().initiate(logger);
+        exception = new IllegalStateException("benchmark \"failure\"");
+    }
+
+    static Object sampleValue(final int i) {
+        switch (i % 3) {
+            case 0:
+                return "value \"" + i + "\"";
+            case 1:
+                return i * 1000L;
+            default:
+                return new UUID(i, i);
+        }
+    }
+
+    private OperationBuilder builder() {
+        final OperationBuilder builder = operation("benchmark");
+        if ("json".equals(layout)) {
+            builder.jsonLayout();
+        }
+        for (int i = 0; i < keys.length; i++) {
+            builder.with(keys[i], values[i]);
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public Operation started() {
+        return builder().started(logger);
+    }
+
+    @Benchmark
+    public void yieldLog() {
+        operation.wasSuccessful().yielding("result", "ok").log();
+    }
+
+    @Benchmark
+    public void failureLog() {
+        operation.wasFailure().throwingException(exception).log();
+    }
+
+    @Benchmark
+    public void intermediateLogDebug() {
+        operation.logIntermediate().yielding("action", "checkEngine").logDebug();
+    }
+}
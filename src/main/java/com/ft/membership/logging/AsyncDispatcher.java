@@ -0,0 +1,283 @@
+package com.ft.membership.logging;
+
+import com.ft.membership.logging.AsyncLogging.FullBufferPolicy;
+import com.ft.membership.logging.AsyncLogging.WaitStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.Util;
+
+/**
+ * A bounded, lock-free, multiple-producer single-consumer ring of pre-allocated slots, and the background thread which
+ * formats and logs them.
+ *
+ * <p>Each slot carries a sequence number: a producer may claim position <tt>p</tt> when its slot's sequence is
+ * <tt>p</tt>, and publishes it by setting the sequence to <tt>p + 1</tt>; the consumer frees it by setting the sequence
+ * to <tt>p + capacity</tt>.</p>
+ *
+ * <p>Lazy values are computed by the publishing thread, which has already checked the level, so that their suppliers
+ * never run on the dispatcher's thread.</p>
+ */
+final class AsyncDispatcher {
+
+    private static final long CLAIMED = -1;
+    private static final long DROPPED = -2;
+    private static final long STOPPED = -3;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long BLOCKING_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int capacity;
+    private final int mask;
+    private final int debugThreshold;
+    private final WaitStrategy waitStrategy;
+    private final FullBufferPolicy fullBufferPolicy;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder publishing = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+    private final Thread consumer;
+
+    AsyncDispatcher(final int bufferSize, final WaitStrategy waitStrategy, final FullBufferPolicy fullBufferPolicy) {
+        this.capacity = Integer.highestOneBit(bufferSize - 1) << 1;
+        this.mask = capacity - 1;
+        this.debugThreshold = capacity - capacity / 4;
+        this.waitStrategy = waitStrategy;
+        this.fullBufferPolicy = fullBufferPolicy;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.consumer = new Thread(this::consume, "fluent-logging-async");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * @return true if the line was queued or discarded by the full-buffer policy; false if the dispatcher has stopped
+     *         and the caller should log it itself.
+     */
+    boolean publish(final LogFormatter formatter, final Level level, final Operation operation, final Yield yield,
+                    final boolean success, final boolean withParameters) {
+        final long millis = LogClock.millis();
+        final Yield yieldSnapshot = yield == null ? null : yield.snapshot();
+        if (yieldSnapshot != null) {
+            yieldSnapshot.resolveLazyValues();
+        }
+        publishing.increment();
+        try {
+            final long position = claim(level);
+            if (position < CLAIMED) {
+                return position == DROPPED;
+            }
+            slots[index(position)].set(formatter, level, operation, yieldSnapshot, null, null, success, withParameters,
+                    millis);
+            release(position);
+            return true;
+        } finally {
+            publishing.decrement();
+        }
+    }
+
+    /**
+     * @return true if the line was queued or discarded by the full-buffer policy; false if the dispatcher has stopped
+     *         and the caller should log it itself.
+     */
+    boolean publish(final LogFormatter formatter, final Level level, final Operation operation, final Failure failure,
+                    final Throwable thrown) {
+        final long millis = LogClock.millis();
+        final Failure failureSnapshot = failure.snapshot();
+        failureSnapshot.resolveLazyValues();
+        publishing.increment();
+        try {
+            final long position = claim(level);
+            if (position < CLAIMED) {
+                return position == DROPPED;
+            }
+            slots[index(position)].set(formatter, level, operation, null, failureSnapshot, thrown, false, true, millis);
+            release(position);
+            return true;
+        } finally {
+            publishing.decrement();
+        }
+    }
+
+    private long claim(final Level level) {
+        final boolean droppable = level == Level.DEBUG && fullBufferPolicy == FullBufferPolicy.DROP_DEBUG_FIRST;
+        long position = tail.get();
+        int attempts = 0;
+        while (true) {
+            if (!running) {
+                return STOPPED;
+            }
+            if (droppable && position - head >= debugThreshold) {
+                dropped.increment();
+                LoggingStatistics.dropped();
+                return DROPPED;
+            }
+            final long available = sequences.get(index(position)) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (available < 0) {
+                if (fullBufferPolicy == FullBufferPolicy.DROP) {
+                    dropped.increment();
+                    LoggingStatistics.dropped();
+                    return DROPPED;
+                }
+                backOff(attempts++);
+            }
+            position = tail.get();
+        }
+    }
+
+    private void release(final long position) {
+        sequences.lazySet(index(position), position + 1);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private int index(final long position) {
+        return (int) position & mask;
+    }
+
+    private void consume() {
+        long next = head;
+        int idle = 0;
+        while (true) {
+            final int index = index(next);
+            if (sequences.get(index) == next + 1) {
+                final Slot slot = slots[index];
+                try {
+                    slot.emit();
+                } catch (RuntimeException e) {
+                    Util.report("Failed to log operation asynchronously", e);
+                }
+                slot.clear();
+                sequences.lazySet(index, next + capacity);
+                head = ++next;
+                idle = 0;
+            } else if (!running && publishing.sum() == 0 && tail.get() == next) {
+                return;
+            } else {
+                idle = await(idle, index, next + 1);
+            }
+        }
+    }
+
+    private int await(final int idle, final int index, final long sequence) {
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                break;
+            case YIELDING:
+                Thread.yield();
+                break;
+            case SLEEPING:
+                backOff(idle);
+                break;
+            case BLOCKING:
+                consumerParked = true;
+                if (running && sequences.get(index) != sequence) {
+                    LockSupport.parkNanos(this, BLOCKING_PARK_NANOS);
+                }
+                consumerParked = false;
+                break;
+        }
+        return idle + 1;
+    }
+
+    private static void backOff(final int attempts) {
+        if (attempts < SPIN_TRIES) {
+            return;
+        }
+        if (attempts < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    boolean flush(final long timeoutNanos) {
+        final long target = tail.get();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (head < target) {
+            if (!consumer.isAlive() || System.nanoTime() - deadline > 0) {
+                return head >= target;
+            }
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+        return true;
+    }
+
+    boolean shutdown(final long timeoutNanos) {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            TimeUnit.NANOSECONDS.timedJoin(consumer, timeoutNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !consumer.isAlive();
+    }
+
+    /**
+     * a line waiting to be logged.
+     */
+    private static final class Slot {
+        private LogFormatter formatter;
+        private Level level;
+        private Operation operation;
+        private Yield yield;
+        private Failure failure;
+        private Throwable thrown;
+        private boolean success;
+        private boolean withParameters;
+        private long millis;
+
+        void set(final LogFormatter formatter, final Level level, final Operation operation, final Yield yield,
+                 final Failure failure, final Throwable thrown, final boolean success, final boolean withParameters,
+                 final long millis) {
+            this.formatter = formatter;
+            this.level = level;
+            this.operation = operation;
+            this.yield = yield;
+            this.failure = failure;
+            this.thrown = thrown;
+            this.success = success;
+            this.withParameters = withParameters;
+            this.millis = millis;
+        }
+
+        /**
+         * build the line from the operation's state as the caller left it: its parameters already encoded, and its
+         * time when published.
+         */
+        void emit() {
+            final String line = formatter.buildMessage(operation, yield, failure, success, withParameters, level, millis);
+            formatter.write(level, line, thrown);
+        }
+
+        void clear() {
+            set(null, null, null, null, null, null, false, false, 0);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous logging, in which the thread terminating an operation only captures a snapshot of it into a
+ * pre-allocated ring buffer, and a background thread formats it and makes the slf4j call.
+ *
+ * <p>Operations opt in with {@link Operation.OperationBuilder#async()}, or all operations may be made asynchronous by
+ * starting with {@link Builder#allOperations()}:</p>
+ *
+ * <pre>
+ *     AsyncLogging.configure()
+ *         .bufferSize(16384)
+ *         .waitStrategy(AsyncLogging.WaitStrategy.SLEEPING)
+ *         .whenFull(AsyncLogging.FullBufferPolicy.DROP_DEBUG_FIRST)
+ *         .allOperations()
+ *         .start();
+ * </pre>
+ *
+ * <p>If an operation opts in before logging has been configured, a dispatcher with the default settings is started.
+ * Buffered lines are flushed by {@link #shutdown(long, TimeUnit)}, or by a JVM shutdown hook. Once shut down,
+ * operations log synchronously.</p>
+ *
+ * <p>NB parameter values are rendered on the background thread, so must not be mutated after being logged.</p>
+ */
+public final class AsyncLogging {
+
+    /**
+     * how the background thread waits for lines to log.
+     */
+    public enum WaitStrategy {
+        /** spin on the buffer; lowest latency, but occupies a core. */
+        BUSY_SPIN,
+        /** spin, yielding the processor between checks. */
+        YIELDING,
+        /** sleep briefly between checks. */
+        SLEEPING,
+        /** park until a line is published; cheapest when idle, at the cost of waking the thread. */
+        BLOCKING
+    }
+
+    /**
+     * what a logging thread does when the buffer is full.
+     */
+    public enum FullBufferPolicy {
+        /** wait for space. */
+        BLOCK,
+        /** discard <tt>DEBUG</tt> lines once the buffer is three-quarters full, and wait for space for others. */
+        DROP_DEBUG_FIRST,
+        /** discard the line. */
+        DROP
+    }
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final Object LOCK = new Object();
+    private static volatile AsyncDispatcher dispatcher;
+    private static volatile boolean allOperations;
+    private static boolean shutdownHookAdded;
+    private static boolean shutDown;
+
+    private AsyncLogging() {
+    }
+
+    /**
+     * @return a builder to configure and start asynchronous logging.
+     */
+    public static Builder configure() {
+        return new Builder();
+    }
+
+    /**
+     * @return whether operations log asynchronously without opting in.
+     */
+    public static boolean isAllOperations() {
+        return allOperations && dispatcher != null;
+    }
+
+    /**
+     * @return the number of lines discarded because the buffer was full.
+     */
+    public static long getDroppedCount() {
+        final AsyncDispatcher current = dispatcher;
+        return current == null ? 0 : current.getDroppedCount();
+    }
+
+    /**
+     * wait until every line logged before this call has been handed to slf4j.
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true if flushed within the timeout
+     */
+    public static boolean flush(final long timeout, final TimeUnit unit) {
+        final AsyncDispatcher current = dispatcher;
+        return current == null || current.flush(unit.toNanos(timeout));
+    }
+
+    /**
+     * flush buffered lines and stop the background thread; subsequent lines are logged synchronously.
+     * @param timeout maximum time to wait for buffered lines to be logged
+     * @param unit unit of timeout
+     * @return true if all buffered lines were logged within the timeout
+     */
+    public static boolean shutdown(final long timeout, final TimeUnit unit) {
+        final AsyncDispatcher stopping;
+        synchronized (LOCK) {
+            stopping = dispatcher;
+            dispatcher = null;
+            allOperations = false;
+            shutDown = true;
+        }
+        return stopping == null || stopping.shutdown(unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the running dispatcher, starting one with default settings if asynchronous logging has not been
+     *         configured; or null if it has been shut down.
+     */
+    static AsyncDispatcher dispatcher() {
+        final AsyncDispatcher current = dispatcher;
+        if (current != null) {
+            return current;
+        }
+        synchronized (LOCK) {
+            if (dispatcher == null && !shutDown) {
+                install(new Builder());
+            }
+            return dispatcher;
+        }
+    }
+
+    private static void install(final Builder builder) {
+        synchronized (LOCK) {
+            if (dispatcher != null) {
+                dispatcher.shutdown(TimeUnit.SECONDS.toNanos(1));
+            }
+            dispatcher = new AsyncDispatcher(builder.bufferSize, builder.waitStrategy, builder.fullBufferPolicy);
+            allOperations = builder.allOperations;
+            shutDown = false;
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(
+                        () -> shutdown(5, TimeUnit.SECONDS), "fluent-logging-async-shutdown"));
+                shutdownHookAdded = true;
+            }
+        }
+    }
+
+    public static class Builder {
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private WaitStrategy waitStrategy = WaitStrategy.SLEEPING;
+        private FullBufferPolicy fullBufferPolicy = FullBufferPolicy.BLOCK;
+        private boolean allOperations;
+
+        Builder() {
+        }
+
+        /**
+         * @param bufferSize number of lines which may be waiting to be logged; rounded up to a power of two.
+         * @return the Builder
+         */
+        public Builder bufferSize(final int bufferSize) {
+            if (bufferSize < 2) {
+                throw new IllegalArgumentException("require bufferSize of at least 2");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * @param waitStrategy how the background thread waits for lines; defaults to {@link WaitStrategy#SLEEPING}.
+         * @return the Builder
+         */
+        public Builder waitStrategy(final WaitStrategy waitStrategy) {
+            this.waitStrategy = checkNotNull(waitStrategy, "require waitStrategy");
+            return this;
+        }
+
+        /**
+         * @param fullBufferPolicy what to do when the buffer is full; defaults to {@link FullBufferPolicy#BLOCK}.
+         * @return the Builder
+         */
+        public Builder whenFull(final FullBufferPolicy fullBufferPolicy) {
+            this.fullBufferPolicy = checkNotNull(fullBufferPolicy, "require fullBufferPolicy");
+            return this;
+        }
+
+        /**
+         * log every operation asynchronously, not only those which opt in with
+         * {@link Operation.OperationBuilder#async()}.
+         * @return the Builder
+         */
+        public Builder allOperations() {
+            this.allOperations = true;
+            return this;
+        }
+
+        /**
+         * start asynchronous logging, replacing (and flushing) any previous configuration.
+         */
+        public void start() {
+            install(this);
+        }
+    }
+}
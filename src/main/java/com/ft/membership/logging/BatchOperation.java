@@ -0,0 +1,279 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * An operation over many items, such as the records of a bulk job, which counts the outcome of each item rather than
+ * logging a line for it.
+ *
+ * <pre>
+ *     BatchOperation batch = BatchOperation.over(operation("import").with("file", file).started(this))
+ *         .progressEvery(1, TimeUnit.MINUTES)
+ *         .build();
+ *
+ *     for (Record record : records) {
+ *         try {
+ *             store(record);
+ *             batch.itemSucceeded();
+ *         } catch (StoreException e) {
+ *             batch.itemFailed(e.reason(), failure -&gt; failure.throwingException(e).withDetail("record", record.id()));
+ *         }
+ *     }
+ *
+ *     batch.wasSuccessful().log();
+ * </pre>
+ * This would log something like:
+ * <pre>
+ *     INFO operation="import" file="records.csv"
+ *     INFO operation="import" file="records.csv" succeeded=420117 failed=12
+ *     ...
+ *     WARN operation="import" outcome="failure" errorMessage="timed out" file="records.csv" reason="timeout" record=17 exception="StoreException"
+ *     INFO operation="import" outcome="success" file="records.csv" succeeded=1000302 failed=27 failureReasons="{timeout=25, duplicate=2}"
+ * </pre>
+ *
+ * <p>Items may be counted from many threads: counts are kept in striped {@link LongAdder}s, and failures are also
+ * counted by reason, for a bounded number of distinct reasons, beyond which they count as <tt>other</tt>. A few failures
+ * are kept as exemplars, sampled uniformly from all of them; an exemplar's details are only added if it is sampled, and
+ * exemplars are logged at <tt>WARN</tt> before the summary. A progress line is logged by the first item counted after
+ * each progress interval.</p>
+ */
+public final class BatchOperation {
+
+    private static final String SUCCEEDED = "succeeded";
+    private static final String FAILED = "failed";
+    private static final String FAILURE_REASONS = "failureReasons";
+    private static final String REASON = "reason";
+    private static final String OTHER = "other";
+
+    private final Operation operation;
+    private final long progressIntervalNanos;
+    private final int reasonCapacity;
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> reasons = new ConcurrentHashMap<>();
+    private final AtomicInteger distinctReasons = new AtomicInteger();
+    private final LongAdder otherReasons = new LongAdder();
+    private final AtomicLong nextProgressNanos;
+    private final AtomicLong sampledFailures = new AtomicLong();
+    private final AtomicReferenceArray<Failure> exemplars;
+
+    private BatchOperation(final Builder builder) {
+        this.operation = builder.operation;
+        this.progressIntervalNanos = builder.progressIntervalNanos;
+        this.reasonCapacity = builder.reasonCapacity;
+        this.nextProgressNanos = new AtomicLong(System.nanoTime() + progressIntervalNanos);
+        this.exemplars = new AtomicReferenceArray<>(builder.exemplars);
+    }
+
+    /**
+     * @param operation the started or initiated operation which the batch terminates
+     * @return a Builder to configure the batch
+     */
+    public static Builder over(final Operation operation) {
+        return new Builder(checkNotNull(operation, "require operation"));
+    }
+
+    /**
+     * count an item which succeeded.
+     */
+    public void itemSucceeded() {
+        succeeded.increment();
+        progress();
+    }
+
+    /**
+     * count an item which failed.
+     * @param reason a short, low-cardinality reason for the failure, by which failures are counted
+     */
+    public void itemFailed(final String reason) {
+        itemFailed(reason, null);
+    }
+
+    /**
+     * count an item which failed, adding details to the failure only if it is sampled as an exemplar.
+     * @param reason a short, low-cardinality reason for the failure, by which failures are counted
+     * @param details decorates the failure, e.g. with {@link Failure#throwingException(Exception)}; or null
+     */
+    public void itemFailed(final String reason, final Consumer<Failure> details) {
+        checkNotNull(reason, "require reason");
+        failed.increment();
+        countReason(reason);
+        sample(reason, details);
+        progress();
+    }
+
+    /**
+     * log the exemplars, and prepare to log the batch's success.
+     * @return a Yield carrying the counts, to be decorated and logged.
+     */
+    public Yield wasSuccessful() {
+        logExemplars();
+        final Yield yield = operation.wasSuccessful()
+                .yielding(SUCCEEDED, succeeded.sum())
+                .yielding(FAILED, failed.sum());
+        final Map<String, Long> byReason = failureReasons();
+        return byReason == null ? yield : yield.yielding(FAILURE_REASONS, byReason);
+    }
+
+    /**
+     * log the exemplars, and prepare to log the batch's failure, such as when it is abandoned part way.
+     * @return a Failure carrying the counts, to be decorated and logged.
+     */
+    public Failure wasFailure() {
+        logExemplars();
+        final Failure failure = operation.wasFailure()
+                .withDetail(SUCCEEDED, succeeded.sum())
+                .withDetail(FAILED, failed.sum());
+        final Map<String, Long> byReason = failureReasons();
+        return byReason == null ? failure : failure.withDetail(FAILURE_REASONS, byReason);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    private void countReason(final String reason) {
+        LongAdder count = reasons.get(reason);
+        // once full, a new reason goes straight to the others, without taking the map's lock to be refused
+        if (count == null && distinctReasons.get() < reasonCapacity) {
+            count = reasons.computeIfAbsent(reason, r -> {
+                if (distinctReasons.incrementAndGet() > reasonCapacity) {
+                    distinctReasons.decrementAndGet();
+                    return null;
+                }
+                return new LongAdder();
+            });
+        }
+        (count == null ? otherReasons : count).increment();
+    }
+
+    /**
+     * keep the failure as an exemplar with the probability that keeps each failure so far equally likely to be one.
+     */
+    private void sample(final String reason, final Consumer<Failure> details) {
+        final int capacity = exemplars.length();
+        if (capacity == 0) {
+            return;
+        }
+        final long seen = sampledFailures.incrementAndGet();
+        final long slot = seen <= capacity ? seen - 1 : ThreadLocalRandom.current().nextLong(seen);
+        if (slot < capacity) {
+            final Failure exemplar = new Failure(operation).withDetail(REASON, reason);
+            if (details != null) {
+                details.accept(exemplar);
+            }
+            exemplars.set((int) slot, exemplar);
+        }
+    }
+
+    private void progress() {
+        if (progressIntervalNanos == 0) {
+            return;
+        }
+        final long next = nextProgressNanos.get();
+        final long now = System.nanoTime();
+        if (now - next >= 0 && nextProgressNanos.compareAndSet(next, now + progressIntervalNanos)) {
+            operation.logIntermediate()
+                    .yielding(SUCCEEDED, succeeded.sum())
+                    .yielding(FAILED, failed.sum())
+                    .log();
+        }
+    }
+
+    private void logExemplars() {
+        for (int i = 0; i < exemplars.length(); i++) {
+            final Failure exemplar = exemplars.getAndSet(i, null);
+            if (exemplar != null) {
+                operation.getFormatter().logWarn(operation, exemplar, false);
+            }
+        }
+    }
+
+    /**
+     * @return the count of failures by reason, most frequent first, or null if there were none.
+     */
+    private Map<String, Long> failureReasons() {
+        final List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        reasons.forEach((reason, count) -> counts.add(new AbstractMap.SimpleImmutableEntry<>(reason, count.sum())));
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        final Map<String, Long> byReason = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> count : counts) {
+            byReason.put(count.getKey(), count.getValue());
+        }
+        final long other = otherReasons.sum();
+        if (other > 0) {
+            byReason.put(OTHER, other);
+        }
+        return byReason.isEmpty() ? null : byReason;
+    }
+
+    public static class Builder {
+        private final Operation operation;
+        private long progressIntervalNanos;
+        private int reasonCapacity = 100;
+        private int exemplars = 5;
+
+        Builder(final Operation operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * log a progress line at <tt>INFO</tt>, carrying the counts so far, at most once per interval; by default,
+         * none is logged.
+         * @param interval the least time between progress lines
+         * @param unit unit of interval
+         * @return the Builder
+         */
+        public Builder progressEvery(final long interval, final TimeUnit unit) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("require positive interval");
+            }
+            this.progressIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * @param reasonCapacity the number of distinct failure reasons counted; failures for further reasons count as
+         *                       <tt>other</tt>. Defaults to 100.
+         * @return the Builder
+         */
+        public Builder failureReasons(final int reasonCapacity) {
+            if (reasonCapacity < 0) {
+                throw new IllegalArgumentException("require reasonCapacity of at least 0");
+            }
+            this.reasonCapacity = reasonCapacity;
+            return this;
+        }
+
+        /**
+         * @param exemplars the number of failures kept, with their details, to log before the summary. Defaults to 5.
+         * @return the Builder
+         */
+        public Builder exemplars(final int exemplars) {
+            if (exemplars < 0) {
+                throw new IllegalArgumentException("require exemplars of at least 0");
+            }
+            this.exemplars = exemplars;
+            return this;
+        }
+
+        public BatchOperation build() {
+            return new BatchOperation(this);
+        }
+    }
+}
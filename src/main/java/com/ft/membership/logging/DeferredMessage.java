@@ -0,0 +1,52 @@
+package com.ft.membership.logging;
+
+import org.slf4j.event.Level;
+
+/**
+ * A log line passed to slf4j as the argument of a <tt>"{}"</tt> message, so that it is only rendered if the logging
+ * backend actually writes the event, and then at most once.
+ *
+ * <p>The line is rendered from the operation, yield or failure as they are when it is rendered, so they must not be
+ * changed once logged. Its time, in the JSON layout, is the time it was logged, not the time it was rendered.</p>
+ */
+final class DeferredMessage {
+
+    private final LogFormatter formatter;
+    private final Level level;
+    private final Operation operation;
+    private final Yield yield;
+    private final Failure failure;
+    private final boolean success;
+    private final boolean withParameters;
+    private final long millis = LogClock.millis();
+
+    private volatile String message;
+
+    DeferredMessage(final LogFormatter formatter, final Level level, final Operation operation, final Yield yield,
+                    final Failure failure, final boolean success, final boolean withParameters) {
+        this.formatter = formatter;
+        this.level = level;
+        this.operation = operation;
+        this.yield = yield;
+        this.failure = failure;
+        this.success = success;
+        this.withParameters = withParameters;
+    }
+
+    @Override
+    public String toString() {
+        String rendered = message;
+        if (rendered == null) {
+            synchronized (this) {
+                rendered = message;
+                if (rendered == null) {
+                    rendered = formatter.buildMessage(operation, yield, failure, success, withParameters, level,
+                            millis);
+                    formatter.learn(operation, rendered);
+                    message = rendered;
+                }
+            }
+        }
+        return rendered;
+    }
+}
@@ -3,12 +3,17 @@ package com.ft.membership.logging;
 import static com.ft.membership.logging.Preconditions.checkNotNull;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class Failure extends Parameters implements LoggingTerminal {
 
     private Operation operation;
     private Exception thrown;
     private String failureMessage;
+    private long durationNanos = -1;
+    private long suppressed = -1;
+    private String stackFingerprint;
+    private String causes;
 
     Failure(final Operation operation) {
         this.operation = operation;
@@ -20,6 +25,7 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @return the Failure
      */
     public Failure throwingException(final Exception e) {
+        checkLive();
         this.thrown = checkNotNull(e, "require exception");
         if (failureMessage == null) {
             withMessage(e.getMessage());
@@ -34,6 +40,7 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @return the Failure
      */
     public Failure withMessage(final Throwable t) {
+        checkLive();
         this.failureMessage = t.getMessage();
         return this;
     }
@@ -45,6 +52,7 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @return the Failure
      */
     public Failure withMessage(final String message) {
+        checkLive();
         this.failureMessage = message;
         return this;
     }
@@ -71,6 +79,182 @@ public class Failure extends Parameters implements LoggingTerminal {
         return this;
     }
 
+    /**
+     * add a key-value detail to the failure, computed only when the failure is logged.
+     * @param key a key
+     * @param detail computes the value, only if a line carrying it is logged
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final Supplier<?> detail) {
+        putLazily(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, computed only when the failure is logged.
+     * @param key a key
+     * @param detail computes the value, only if a line carrying it is logged
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final Supplier<?> detail) {
+        putLazily(key.getKey(), detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a long value
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final long detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a long value
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final long detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a double value
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final double detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a double value
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final double detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a boolean value
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final boolean detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure, without boxing the value.
+     * @param key a key
+     * @param detail a boolean value
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final boolean detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a char value, rendered as text rather than as its code point
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final char detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a float value, rendered as its shortest decimal rather than widened to a double
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final float detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a short value, rendered quoted, as a boxed Short, rather than widened to a long
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final short detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a byte value, rendered quoted, as a boxed Byte, rather than widened to a long
+     * @return the Failure
+     */
+    public Failure withDetail(final String key, final byte detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a char value, rendered as text rather than as its code point
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final char detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a float value, rendered as its shortest decimal rather than widened to a double
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final float detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a short value, rendered quoted, as a boxed Short, rather than widened to a long
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final short detail) {
+        put(key, detail);
+        return this;
+    }
+
+    /**
+     * add a key-value detail to the failure.
+     * @param key a key
+     * @param detail a byte value, rendered quoted, as a boxed Byte, rather than widened to a long
+     * @return the Failure
+     */
+    public Failure withDetail(final Key key, final byte detail) {
+        put(key, detail);
+        return this;
+    }
+
     /**
      * add all key-values from a map as detail of the failure.
      * @param keyValues a map
@@ -93,7 +277,9 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @param actorOrLogger an alternative logger or object for log context
      */
     public void log(Object actorOrLogger) {
+        checkLive();
         logError(actorOrLogger);
+        Recycling.recycle(this);
     }
 
     /**
@@ -101,7 +287,9 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @param actorOrLogger logger or object for log context
      */
     public void logInfo(Object actorOrLogger) {
-        new LogFormatter(actorOrLogger).logInfo(operation, this, true);
+        checkLive();
+        operation.getFormatter(actorOrLogger).logInfo(operation, this, true);
+        Recycling.recycle(this);
     }
 
     /**
@@ -109,11 +297,89 @@ public class Failure extends Parameters implements LoggingTerminal {
      * @param actorOrLogger logger or object for log context
      */
     public void logWarn(Object actorOrLogger) {
-        new LogFormatter(actorOrLogger).logWarn(operation, this, true);
+        checkLive();
+        operation.getFormatter(actorOrLogger).logWarn(operation, this, true);
+        Recycling.recycle(this);
     }
 
     private void logError(Object actorOrLogger) {
-        new LogFormatter(actorOrLogger).logError(operation, this, true);
+        operation.getFormatter(actorOrLogger).logError(operation, this, true);
+    }
+
+    /**
+     * @return a copy of this failure, unaffected by later changes to its details.
+     */
+    Failure snapshot() {
+        final Failure snapshot = new Failure(operation);
+        snapshot.thrown = thrown;
+        snapshot.failureMessage = failureMessage;
+        snapshot.durationNanos = durationNanos;
+        snapshot.suppressed = suppressed;
+        snapshot.stackFingerprint = stackFingerprint;
+        snapshot.causes = causes;
+        snapshot.putAll(getParameters());
+        return snapshot;
+    }
+
+    /**
+     * @return this failure, taken from a pool for another operation.
+     */
+    Failure reuse(final Operation operation) {
+        this.operation = operation;
+        return this;
+    }
+
+    @Override
+    void release(final boolean retire) {
+        super.release(retire);
+        if (!retire) {
+            operation = null;
+        }
+        thrown = null;
+        failureMessage = null;
+        durationNanos = -1;
+        suppressed = -1;
+        stackFingerprint = null;
+        causes = null;
+    }
+
+    /**
+     * @param durationNanos the duration of the operation this failure terminates, or -1 if it is not timed.
+     */
+    void setDurationNanos(final long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @param suppressed the number of repeats of this failure suppressed, for a summary; otherwise -1.
+     */
+    void setSuppressed(final long suppressed) {
+        this.suppressed = suppressed;
+    }
+
+    long getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * @param stackFingerprint the fingerprint of the exception's stack-trace; see {@link StackTraceFingerprints}.
+     * @param causes a summary of the exception's causes, if its stack-trace is left out; otherwise null.
+     */
+    void setStackFingerprint(final String stackFingerprint, final String causes) {
+        this.stackFingerprint = stackFingerprint;
+        this.causes = causes;
+    }
+
+    String getStackFingerprint() {
+        return stackFingerprint;
+    }
+
+    String getCauses() {
+        return causes;
     }
 
     boolean didThrow() {
@@ -0,0 +1,74 @@
+package com.ft.membership.logging;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suppression of bursts of repeated failures, such as during an outage of a downstream service.
+ *
+ * <pre>
+ *     FailureSuppression.enable(10, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * <p>A failure of an operation with the same name, exception class and message as one logged within the window is
+ * counted rather than logged. When the window closes, a summary of the first failure is logged, without its
+ * stack-trace, carrying <tt>suppressed=N</tt>. The next repeat after that is logged in full and opens a new window.</p>
+ *
+ * <p>Recent failures are kept in a table of bounded size; a failure which collides with a different one in the table
+ * evicts it, summarising its window early.</p>
+ */
+public final class FailureSuppression {
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Object LOCK = new Object();
+    private static volatile SuppressionTable table;
+
+    private FailureSuppression() {
+    }
+
+    /**
+     * suppress repeated failures, replacing (and summarising) any previous configuration.
+     * @param window how long after a failure is logged to suppress its repeats
+     * @param unit unit of window
+     */
+    public static void enable(final long window, final TimeUnit unit) {
+        enable(window, unit, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * suppress repeated failures, replacing (and summarising) any previous configuration.
+     * @param window how long after a failure is logged to suppress its repeats
+     * @param unit unit of window
+     * @param capacity number of distinct failures which may be tracked at once; rounded up to a power of two.
+     */
+    public static void enable(final long window, final TimeUnit unit, final int capacity) {
+        if (window < 1 || capacity < 1) {
+            throw new IllegalArgumentException("require positive window and capacity");
+        }
+        synchronized (LOCK) {
+            disable();
+            table = new SuppressionTable(unit.toNanos(window), capacity);
+        }
+    }
+
+    /**
+     * log every failure, logging a summary of any repeats suppressed so far.
+     */
+    public static void disable() {
+        final SuppressionTable stopping;
+        synchronized (LOCK) {
+            stopping = table;
+            table = null;
+        }
+        if (stopping != null) {
+            stopping.stop();
+        }
+    }
+
+    /**
+     * @return the table of recent failures, or null if suppression is disabled.
+     */
+    static SuppressionTable table() {
+        return table;
+    }
+}
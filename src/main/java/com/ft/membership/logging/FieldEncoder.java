@@ -0,0 +1,22 @@
+package com.ft.membership.logging;
+
+/**
+ * Takes the fields of one log event, in the order given, whether to be written as a line or recorded otherwise.
+ *
+ * <p>Encoders are per-thread and must be {@link #release() released} once the event is complete.</p>
+ */
+abstract class FieldEncoder {
+
+    abstract FieldEncoder field(String name, Object value);
+
+    abstract FieldEncoder field(String name, long value);
+
+    abstract FieldEncoder field(String name, double value);
+
+    abstract FieldEncoder field(String name, boolean value);
+
+    /**
+     * return this encoder's buffers for re-use by the next event on this thread.
+     */
+    abstract void release();
+}
@@ -0,0 +1,395 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.Util;
+
+/**
+ * A {@link LogSink} which appends lines to a file through direct buffers, without slf4j or a logging backend.
+ *
+ * <p>Logging threads encode lines as UTF-8 into a buffer of their own, then copy each whole line into the current
+ * direct buffer, spilling into as many more as it needs; a background thread group-commits the filled buffers with a
+ * single gathering {@link FileChannel#write(ByteBuffer[])} at each flush interval, or as soon as a buffer fills. When
+ * too few buffers are free to take a line, its thread waits for them before copying any of it, so that lines never
+ * interleave. A line larger than all the buffers together is dropped, and counted as dropped by
+ * {@link LoggingStatistics}, as is a line written after the sink is closed.</p>
+ *
+ * <p>Lines in the text layout are prefixed with <tt>logLevel</tt>, <tt>time</tt> and <tt>category</tt>, as in the
+ * recommended logback pattern; JSON lines carry their own level and time, and are written as they are. A throwable's
+ * stack-trace follows a text line, and is added to a JSON line as its <tt>stackTrace</tt> field. When the file would grow past the rolling size, it is renamed to <tt>name.1</tt>
+ * (and older files to <tt>name.2</tt>, and so on) and a new file started.</p>
+ */
+public final class FileLogSink implements LogSink, Closeable {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String STACK_TRACE = "stackTrace";
+    private static final int MAX_RETAINED_LINE = 16 * 1024;
+
+    private final Path path;
+    private final long rollingSize;
+    private final int backups;
+    private final long flushIntervalNanos;
+    private final int bufferSize;
+    private final int bufferCount;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition filled = lock.newCondition();
+    private final Condition freed = lock.newCondition();
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private final List<ByteBuffer> ready = new ArrayList<>();
+    private ByteBuffer current;
+    private boolean closed;
+
+    private final ThreadLocal<Line> lines = ThreadLocal.withInitial(Line::new);
+
+    // accessed only by the flushing thread, and close() once it has stopped
+    private FileChannel channel;
+    private long size;
+    private final Thread flusher;
+
+    private FileLogSink(final Builder builder) throws IOException {
+        this.path = builder.path;
+        this.rollingSize = builder.rollingSize;
+        this.backups = builder.backups;
+        this.flushIntervalNanos = builder.flushIntervalNanos;
+        this.bufferSize = builder.bufferSize;
+        this.bufferCount = builder.buffers;
+        for (int i = 0; i < builder.buffers; i++) {
+            free.add(ByteBuffer.allocateDirect(builder.bufferSize));
+        }
+        this.current = free.poll();
+        openChannel();
+        this.flusher = new Thread(this::flushContinuously, "fluent-logging-file-sink");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * @param path the file to append to, created if it does not exist
+     * @return a Builder to configure the sink
+     */
+    public static Builder to(final Path path) {
+        return new Builder(checkNotNull(path, "require path"));
+    }
+
+    @Override
+    public void write(final Level level, final String loggerName, final String line, final Throwable thrown) {
+        final Line buffers = lines.get();
+        final StringBuilder text = buffers.text;
+        text.setLength(0);
+        final String stackTrace = thrown == null ? null : stackTrace(thrown);
+        if (line.startsWith("{")) {
+            text.append(line);
+            if (stackTrace != null) {
+                addStackTrace(text, stackTrace);
+            }
+        } else {
+            text.append("logLevel=\"").append(level.name())
+                    .append("\" time=\"").append(LogClock.timestamp())
+                    .append("\" category=\"").append(loggerName).append("\" ")
+                    .append(line).append(LINE_SEPARATOR);
+            if (stackTrace != null) {
+                text.append(stackTrace);
+            }
+        }
+        append(buffers.encode());
+        if (text.capacity() > MAX_RETAINED_LINE) {
+            lines.remove();
+        }
+    }
+
+    private static String stackTrace(final Throwable thrown) {
+        final StringWriter stackTrace = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(stackTrace));
+        return stackTrace.toString();
+    }
+
+    /**
+     * add a stack-trace as the last field of a JSON line, so that the line remains a single JSON object.
+     */
+    private static void addStackTrace(final StringBuilder text, final String stackTrace) {
+        final int end = text.lastIndexOf("}");
+        final StringBuilder field = new StringBuilder(stackTrace.length() + 16);
+        if (text.charAt(end - 1) != '{') {
+            field.append(',');
+        }
+        field.append('"').append(STACK_TRACE).append("\":\"")
+                .append(JsonStringEncoder.getInstance().quoteAsString(stackTrace)).append('"');
+        text.insert(end, field);
+    }
+
+    private void append(final ByteBuffer bytes) {
+        final int length = bytes.remaining();
+        if ((length + bufferSize - 1) / bufferSize > bufferCount) {
+            LoggingStatistics.dropped();
+            Util.report("Dropped a log line larger than the buffers of " + path);
+            return;
+        }
+        lock.lock();
+        try {
+            while (!closed) {
+                final int spill = length - (current == null ? 0 : current.remaining());
+                if (spill <= 0 || free.size() >= (spill + bufferSize - 1) / bufferSize) {
+                    copy(bytes);
+                    return;
+                }
+                // wait until the whole line can be reserved, rather than release the lock part way through it
+                filled.signal();
+                freed.awaitUninterruptibly();
+            }
+            LoggingStatistics.dropped();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * copy a line into the current buffer and, once that is full, the free buffers it was reserved; all are written
+     * by the same group commit.
+     */
+    private void copy(final ByteBuffer bytes) {
+        final int limit = bytes.limit();
+        while (bytes.hasRemaining()) {
+            if (current == null) {
+                current = free.poll();
+            } else if (!current.hasRemaining()) {
+                ready.add(current);
+                current = free.poll();
+                filled.signal();
+            }
+            // through Buffer, as a JDK 9+ compiler would link to ByteBuffer's covariant overrides, absent from Java 8
+            ((Buffer) bytes).limit(Math.min(limit, bytes.position() + current.remaining()));
+            current.put(bytes);
+            ((Buffer) bytes).limit(limit);
+        }
+    }
+
+    /**
+     * write buffered lines, and close the file.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            filled.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushContinuously() {
+        boolean stopping = false;
+        while (!stopping) {
+            final ByteBuffer[] batch;
+            lock.lock();
+            try {
+                if (ready.isEmpty() && !closed) {
+                    filled.awaitNanos(flushIntervalNanos);
+                }
+                stopping = closed;
+                if (current != null && current.position() > 0) {
+                    ready.add(current);
+                    current = free.poll();
+                }
+                batch = ready.toArray(new ByteBuffer[0]);
+                ready.clear();
+            } catch (InterruptedException e) {
+                stopping = true;
+                continue;
+            } finally {
+                lock.unlock();
+            }
+            if (batch.length > 0) {
+                commit(batch);
+            }
+        }
+    }
+
+    private void commit(final ByteBuffer[] batch) {
+        long bytes = 0;
+        for (ByteBuffer buffer : batch) {
+            ((Buffer) buffer).flip();
+            bytes += buffer.remaining();
+        }
+        try {
+            if (size > 0 && size + bytes > rollingSize) {
+                roll();
+            }
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(batch);
+            }
+            size += written;
+        } catch (IOException e) {
+            Util.report("Failed to write log lines to " + path, e);
+        }
+        lock.lock();
+        try {
+            for (ByteBuffer buffer : batch) {
+                ((Buffer) buffer).clear();
+                if (current == null) {
+                    current = buffer;
+                } else {
+                    free.add(buffer);
+                }
+            }
+            freed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        if (backups == 0) {
+            Files.delete(path);
+        } else {
+            for (int i = backups - 1; i >= 1; i--) {
+                final Path older = backup(i);
+                if (Files.exists(older)) {
+                    Files.move(older, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openChannel();
+    }
+
+    private Path backup(final int generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    /**
+     * a thread's buffers for the line it is writing.
+     */
+    private static final class Line {
+        private final StringBuilder text = new StringBuilder(256);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer bytes = ByteBuffer.allocate(256 * 3);
+
+        /**
+         * @return the text encoded as UTF-8, ready to be read; valid until this thread's next line.
+         */
+        ByteBuffer encode() {
+            // at most three bytes per char, so that encoding never overflows
+            final int capacity = text.length() * (int) Math.ceil(encoder.maxBytesPerChar());
+            if (bytes.capacity() < capacity) {
+                bytes = ByteBuffer.allocate(capacity);
+            }
+            ((Buffer) bytes).clear();
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(text), bytes, true);
+            encoder.flush(bytes);
+            ((Buffer) bytes).flip();
+            return bytes;
+        }
+    }
+
+    public static class Builder {
+        private final Path path;
+        private int bufferSize = 64 * 1024;
+        private int buffers = 16;
+        private long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long rollingSize = Long.MAX_VALUE;
+        private int backups;
+
+        Builder(final Path path) {
+            this.path = path;
+        }
+
+        /**
+         * @param bufferSize size in bytes of each direct buffer; defaults to 64KiB.
+         * @param buffers number of buffers; when all are waiting to be written, logging threads wait. Defaults to 16.
+         * @return the Builder
+         */
+        public Builder buffers(final int bufferSize, final int buffers) {
+            if (bufferSize < 64 || buffers < 2) {
+                throw new IllegalArgumentException("require bufferSize of at least 64 and at least 2 buffers");
+            }
+            this.bufferSize = bufferSize;
+            this.buffers = buffers;
+            return this;
+        }
+
+        /**
+         * @param flushInterval longest time a line waits to be written, unless its buffer fills first; defaults to
+         *                      100ms.
+         * @param unit unit of flushInterval
+         * @return the Builder
+         */
+        public Builder flushInterval(final long flushInterval, final TimeUnit unit) {
+            if (flushInterval < 1) {
+                throw new IllegalArgumentException("require positive flushInterval");
+            }
+            this.flushIntervalNanos = unit.toNanos(flushInterval);
+            return this;
+        }
+
+        /**
+         * roll the file when it would grow past a size; by default, the file is never rolled.
+         * @param rollingSize size in bytes
+         * @param backups number of rolled files to keep
+         * @return the Builder
+         */
+        public Builder rollingAt(final long rollingSize, final int backups) {
+            if (rollingSize < 1 || backups < 0) {
+                throw new IllegalArgumentException("require positive rollingSize and backups of at least 0");
+            }
+            this.rollingSize = rollingSize;
+            this.backups = backups;
+            return this;
+        }
+
+        /**
+         * @return the sink, appending to the file.
+         * @throws UncheckedIOException if the file cannot be opened
+         */
+        public FileLogSink open() {
+            try {
+                return new FileLogSink(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ft.membership.logging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an operation with a fixed set of starting parameters, from which {@link FluentOperationProcessor}
+ * generates a typed builder.
+ *
+ * <pre>
+ *     &#64;FluentOperation("launch")
+ *     interface LaunchOp {
+ *         LaunchOp probe(long id);
+ *         LaunchOp target(String target);
+ *     }
+ *
+ *     Operation operation = LaunchOpOperation.operation()
+ *         .probe(27)
+ *         .target("Mars")
+ *         .started(this);
+ * </pre>
+ *
+ * <p>Each method of the interface takes a single value and returns the interface; the method's name is the key. The
+ * generated class, named for the interface with <tt>Operation</tt> appended, stores each value in a slot of its own,
+ * unboxed where it is a primitive, and logs exactly as the equivalent {@link Operation.OperationBuilder} would.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface FluentOperation {
+
+    /**
+     * @return the name of the operation.
+     */
+    String value();
+
+    /**
+     * @return whether the operation logs in JSON; see {@link Operation.OperationBuilder#jsonLayout()}.
+     */
+    boolean jsonLayout() default false;
+
+    /**
+     * @return whether the operation is timed; see {@link Operation.OperationBuilder#timed()}.
+     */
+    boolean timed() default false;
+}
@@ -0,0 +1,204 @@
+package com.ft.membership.logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@link TypedOperationBuilder} for each interface annotated with {@link FluentOperation}.
+ *
+ * <p>The processor is registered as a service, so javac runs it for any project with fluent-logging on its
+ * compile classpath.</p>
+ */
+public final class FluentOperationProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "Operation";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(FluentOperation.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(FluentOperation.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@FluentOperation requires an interface");
+                continue;
+            }
+            final TypeElement type = (TypeElement) element;
+            final List<ExecutableElement> methods = slots(type);
+            if (methods != null) {
+                generate(type, methods);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the methods setting each slot, in declaration order; or null if the interface is not a valid schema.
+     */
+    private List<ExecutableElement> slots(final TypeElement type) {
+        if (!type.getTypeParameters().isEmpty() || !type.getInterfaces().isEmpty()) {
+            error(type, "@FluentOperation requires an interface without type parameters or super-interfaces");
+            return null;
+        }
+        final List<ExecutableElement> methods = new ArrayList<>();
+        final Set<String> keys = new HashSet<>();
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            final String key = method.getSimpleName().toString();
+            if (method.getParameters().size() != 1
+                    || !method.getTypeParameters().isEmpty()
+                    || !processingEnv.getTypeUtils().isSameType(method.getReturnType(), type.asType())) {
+                error(method, "require a method taking one value and returning " + type.getSimpleName());
+                valid = false;
+            } else if (!keys.add(key)) {
+                error(method, "require unique keys, but " + key + " is repeated");
+                valid = false;
+            } else {
+                methods.add(method);
+            }
+        }
+        return valid ? methods : null;
+    }
+
+    private void generate(final TypeElement type, final List<ExecutableElement> methods) {
+        final FluentOperation annotation = type.getAnnotation(FluentOperation.class);
+        final String packageName = packageOf(type).getQualifiedName().toString();
+        final String className = generatedName(type);
+        final String interfaceName = type.getQualifiedName().toString();
+        final String visibility = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Typed builder for the <tt>").append(annotation.value()).append("</tt> operation, ")
+                .append("generated from {@link ").append(interfaceName).append("}.\n")
+                .append(" */\n")
+                .append(visibility).append("final class ").append(className)
+                .append(" extends com.ft.membership.logging.TypedOperationBuilder implements ")
+                .append(interfaceName).append(" {\n\n")
+                .append("    private static final com.ft.membership.logging.OperationSchema SCHEMA =\n")
+                .append("            com.ft.membership.logging.OperationSchema.of(")
+                .append(literal(annotation.value())).append(", ")
+                .append(annotation.jsonLayout()).append(", ")
+                .append(annotation.timed());
+        for (ExecutableElement method : methods) {
+            source.append(", ").append(literal(method.getSimpleName().toString()));
+        }
+        source.append(");\n\n")
+                .append("    private ").append(className).append("() {\n")
+                .append("        super(SCHEMA);\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * create the operation, ready for its starting parameters.\n")
+                .append("     * @return the builder\n")
+                .append("     */\n")
+                .append("    public static ").append(className).append(" operation() {\n")
+                .append("        return new ").append(className).append("();\n")
+                .append("    }\n");
+        for (int slot = 0; slot < methods.size(); slot++) {
+            final ExecutableElement method = methods.get(slot);
+            final TypeMirror parameterType = method.getParameters().get(0).asType();
+            source.append("\n")
+                    .append("    @Override\n")
+                    .append("    public ").append(className).append(" ").append(method.getSimpleName())
+                    .append("(final ").append(parameterType).append(" value) {\n")
+                    .append("        set(").append(slot).append(", ").append(cast(parameterType))
+                    .append("value);\n")
+                    .append("        return this;\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+
+        final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Failed to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return a cast to <tt>Object</tt> for a <tt>char</tt> or <tt>float</tt>, which overloading would otherwise widen
+     *         to <tt>long</tt> or <tt>double</tt>, so that they render as through {@link Operation.OperationBuilder};
+     *         otherwise nothing, as integers are held as <tt>long</tt>, and anything else as itself.
+     */
+    private static String cast(final TypeMirror type) {
+        switch (type.getKind()) {
+            case CHAR:
+            case FLOAT:
+                return "(Object) ";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * @return the name of the generated class: that of the interface, prefixed by any enclosing classes, with
+     *         {@value #SUFFIX} appended.
+     */
+    private static String generatedName(final TypeElement type) {
+        final StringBuilder name = new StringBuilder(type.getSimpleName()).append(SUFFIX);
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    private static PackageElement packageOf(final Element element) {
+        Element enclosing = element;
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return (PackageElement) enclosing;
+    }
+
+    private static String literal(final String value) {
+        final StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < ' ' || c > '~') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ft.membership.logging;
+
+import org.slf4j.event.Level;
+
+/**
+ * The most recent intermediate yields of an operation, held back until it terminates: logged before its failure, or
+ * dropped on its success.
+ *
+ * <p>The trail is a ring of bounded capacity; once full, each yield added displaces the oldest.</p>
+ */
+final class IntermediateTrail {
+
+    private final LogFormatter[] formatters;
+    private final Level[] levels;
+    private final Yield[] yields;
+    private final boolean counting;
+    private int next;
+    private long count;
+
+    IntermediateTrail(final int capacity, final boolean counting) {
+        this.formatters = new LogFormatter[capacity];
+        this.levels = new Level[capacity];
+        this.yields = new Yield[capacity];
+        this.counting = counting;
+    }
+
+    synchronized void add(final LogFormatter formatter, final Level level, final Yield yield) {
+        formatters[next] = formatter;
+        levels[next] = level;
+        yields[next] = yield;
+        next = (next + 1) % yields.length;
+        count++;
+    }
+
+    /**
+     * @return whether a success carries the number of yields dropped.
+     */
+    boolean isCounting() {
+        return counting;
+    }
+
+    /**
+     * @return the number of yields added, including any displaced.
+     */
+    synchronized long count() {
+        return count;
+    }
+
+    /**
+     * log the yields held, oldest first, each at its own level if its logger has that enabled, and otherwise at the
+     * level of the failure, so that <tt>DEBUG</tt> lines are not lost.
+     * @param operation the operation
+     * @param failureLevel the level the failure is logged at
+     */
+    synchronized void flush(final Operation operation, final Level failureLevel) {
+        final int held = (int) Math.min(count, yields.length);
+        for (int i = 0; i < held; i++) {
+            final int index = (next - held + i + yields.length) % yields.length;
+            final LogFormatter formatter = formatters[index];
+            final Level level = formatter.isEnabled(levels[index]) ? levels[index] : failureLevel;
+            formatter.logIntermediate(level, operation, yields[index]);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.ft.membership.logging;
 
 import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.event.Level;
 
 public class IntermediateYield extends Yield {
   private Operation operation;
@@ -45,12 +47,204 @@ public class IntermediateYield extends Yield {
     return this;
   }
 
+  /**
+   * add a key-value to the yield, computed only when the yield is logged.
+   * @param key a key.
+   * @param value computes the value, only if a line carrying it is logged.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final Supplier<?> value) {
+    putLazily(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, computed only when the yield is logged.
+   * @param key a key.
+   * @param value computes the value, only if a line carrying it is logged.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final Supplier<?> value) {
+    putLazily(key.getKey(), value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a long value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final long value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a long value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final long value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a double value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final double value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a double value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final double value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a boolean value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final boolean value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield, without boxing the value.
+   * @param key a key.
+   * @param value a boolean value.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final boolean value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a char value, rendered as text rather than as its code point.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final char value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a float value, rendered as its shortest decimal rather than widened to a double.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final float value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final short value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final String key, final byte value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a char value, rendered as text rather than as its code point.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final char value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a float value, rendered as its shortest decimal rather than widened to a double.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final float value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final short value) {
+    put(key, value);
+    return this;
+  }
+
+  /**
+   * add a key-value to the yield.
+   * @param key a key.
+   * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long.
+   * @return the IntermediateYield
+   */
+  @Override
+  public IntermediateYield yielding(final Key key, final byte value) {
+    put(key, value);
+    return this;
+  }
+
   /**
    * log this success with an <tt>INFO</tt> log-level, using the log context passed when starting the operation.
    */
   @Override
   public void log() {
-    new LogFormatter(operation.getActorOrLogger()).logInfo(operation, this, false);
+    log(operation.getFormatter(), Level.INFO);
   }
   
   /**
@@ -59,39 +253,68 @@ public class IntermediateYield extends Yield {
    */
   @Override
   public void log(final Object actorOrLogger) {
-    new LogFormatter(actorOrLogger).logInfo(operation, this, false);
+    log(operation.getFormatter(actorOrLogger), Level.INFO);
   }
   
   public void logInfo() {
-    new LogFormatter(operation.getActorOrLogger()).logInfo(operation, this, false);
+    log(operation.getFormatter(), Level.INFO);
   }
 
   public void logDebug() {
-    new LogFormatter(operation.getActorOrLogger()).logDebug(operation, this, false);
+    log(operation.getFormatter(), Level.DEBUG);
   }
 
   public void logWarn() {
-    new LogFormatter(operation.getActorOrLogger()).logWarn(operation, this, false);
+    log(operation.getFormatter(), Level.WARN);
   }
 
   public void logError() {
-    new LogFormatter(operation.getActorOrLogger()).logError(operation, this, false);
+    log(operation.getFormatter(), Level.ERROR);
   }
   
   public void logInfo(final Object actorOrLogger) {
-    new LogFormatter(actorOrLogger).logInfo(operation, this, false);
+    log(operation.getFormatter(actorOrLogger), Level.INFO);
   }
 
   @Override
   public void logDebug(final Object actorOrLogger) {
-    new LogFormatter(actorOrLogger).logDebug(operation, this, false);
+    log(operation.getFormatter(actorOrLogger), Level.DEBUG);
   }
 
   public void logWarn(final Object actorOrLogger) {
-    new LogFormatter(actorOrLogger).logWarn(operation, this, false);
+    log(operation.getFormatter(actorOrLogger), Level.WARN);
   }
 
   public void logError(final Object actorOrLogger) {
-    new LogFormatter(actorOrLogger).logError(operation, this, false);
+    log(operation.getFormatter(actorOrLogger), Level.ERROR);
+  }
+
+  @Override
+  IntermediateYield reuse(final Operation operation) {
+    super.reuse(operation);
+    this.operation = operation;
+    return this;
+  }
+
+  @Override
+  void release(final boolean retire) {
+    super.release(retire);
+    if (!retire) {
+      operation = null;
+    }
+  }
+
+  /**
+   * log now, or add to the operation's trail if it buffers intermediate lines.
+   */
+  private void log(final LogFormatter formatter, final Level level) {
+    checkLive();
+    final IntermediateTrail trail = operation.getIntermediateTrail();
+    if (trail != null) {
+      trail.add(formatter, level, snapshot());
+    } else {
+      formatter.logIntermediate(level, operation, this);
+    }
+    recycle();
   }
 }
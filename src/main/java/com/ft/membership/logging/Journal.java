@@ -0,0 +1,330 @@
+package com.ft.membership.logging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.Util;
+
+/**
+ * A ring of memory-mapped segment files to which events are appended in the binary journal format.
+ *
+ * <p>Each segment starts with a header of {@link #MAGIC}, the segment size, a sequence number which increases with
+ * each segment started, and the time it was started. Records follow, each introduced by a tag:</p>
+ * <ul>
+ *     <li>{@link #DEFINE}: the next number in the segment's dictionary, and its string;</li>
+ *     <li>{@link #EVENT}: the time since the previous event, the level, flags, the logger name's number, and the
+ *     fields, each its name's number, a type and a value; then, if flagged, a stack-trace;</li>
+ *     <li>{@link #END}: no more records.</li>
+ * </ul>
+ * <p>Counts, lengths and numbers are variable-length; signed numbers are zig-zag encoded first. Strings are UTF-8,
+ * preceded by their length. Each segment has a dictionary of its own, so may be decoded without the others.</p>
+ */
+final class Journal {
+
+    static final int MAGIC = 0x464c4a31;
+    static final int HEADER_SIZE = 24;
+    static final int MIN_SEGMENT_SIZE = 1024;
+    static final String SEGMENT_PREFIX = "operations-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    static final byte END = 0;
+    static final byte DEFINE = 1;
+    static final byte EVENT = 2;
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte STRING = 4;
+    static final byte NAME = 5;
+    static final byte JSON = 6;
+
+    static final int JSON_LAYOUT = 1;
+    static final int STACK_TRACE = 2;
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final Path directory;
+    private final int segments;
+    private final int segmentSize;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> defined = new ArrayList<>();
+
+    private FileChannel channel;
+    // null once closed, or while the next segment fails to start
+    private MappedByteBuffer buffer;
+    private boolean closed;
+    private boolean failing;
+    private int index;
+    private long sequence;
+    private long lastMillis;
+
+    Journal(final Path directory, final int segments, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        long latest = -1;
+        int latestIndex = -1;
+        for (int i = 0; i < segments; i++) {
+            final long segmentSequence = sequence(segment(directory, i));
+            if (segmentSequence > latest) {
+                latest = segmentSequence;
+                latestIndex = i;
+            }
+        }
+        start((latestIndex + 1) % segments, latest + 1, LogClock.millis());
+    }
+
+    /**
+     * append an event.
+     * @param level the level it would have been logged at
+     * @param loggerName the name of the logger it would have been logged to
+     * @param event the fields of the event
+     * @param thrown a throwable whose stack-trace to record with the event, or null
+     */
+    void append(final Level level, final String loggerName, final JournalEncoder event, final Throwable thrown) {
+        final String stackTrace = thrown == null ? null : stackTrace(thrown);
+        synchronized (this) {
+            if (closed) {
+                LoggingStatistics.dropped();
+                return;
+            }
+            final long now = LogClock.millis();
+            try {
+                if (buffer == null) {
+                    // the next segment failed to start: try it again
+                    start((index + 1) % segments, sequence + 1, now);
+                }
+                if (!tryAppend(now, level, String.valueOf(loggerName), event, stackTrace)) {
+                    start((index + 1) % segments, sequence + 1, now);
+                    if (!tryAppend(now, level, String.valueOf(loggerName), event, stackTrace)) {
+                        LoggingStatistics.dropped();
+                        Util.report("Dropped an operation event larger than a journal segment");
+                    }
+                }
+                failing = false;
+            } catch (IOException e) {
+                LoggingStatistics.dropped();
+                if (!failing) {
+                    // reported once, rather than for each event dropped until a segment starts
+                    Util.report("Failed to start journal segment in " + directory + ", dropping events", e);
+                    failing = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * write any changes to the segment files, and close them; events appended after this are dropped.
+     */
+    synchronized void close() {
+        closed = true;
+        closeSegment();
+    }
+
+    private void closeSegment() {
+        if (buffer == null) {
+            return;
+        }
+        buffer.force();
+        buffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Util.report("Failed to close journal segment in " + directory, e);
+        }
+    }
+
+    /**
+     * @return false if the event did not fit in the rest of the segment, which is left as it was.
+     */
+    private boolean tryAppend(final long now, final Level level, final String loggerName, final JournalEncoder event,
+                              final String stackTrace) {
+        final int start = buffer.position();
+        final int definedBefore = defined.size();
+        try {
+            // every name is defined before the event refers to it
+            define(loggerName);
+            for (int i = 0; i < event.size(); i++) {
+                define(event.name(i));
+                if (event.type(i) == NAME) {
+                    define(event.stringValue(i));
+                }
+            }
+            buffer.put(EVENT);
+            putVarLong(buffer, zigZag(now - lastMillis));
+            buffer.put((byte) level.ordinal());
+            buffer.put((byte) ((event.isJsonLayout() ? JSON_LAYOUT : 0) | (stackTrace != null ? STACK_TRACE : 0)));
+            putVarLong(buffer, dictionary.get(loggerName));
+            putVarLong(buffer, event.size());
+            for (int i = 0; i < event.size(); i++) {
+                putVarLong(buffer, dictionary.get(event.name(i)));
+                final byte type = event.type(i);
+                buffer.put(type);
+                switch (type) {
+                    case LONG:
+                        putVarLong(buffer, zigZag(event.longValue(i)));
+                        break;
+                    case DOUBLE:
+                        buffer.putLong(event.longValue(i));
+                        break;
+                    case BOOLEAN:
+                        buffer.put((byte) event.longValue(i));
+                        break;
+                    case NAME:
+                        putVarLong(buffer, dictionary.get(event.stringValue(i)));
+                        break;
+                    case STRING:
+                    case JSON:
+                        putString(buffer, event.stringValue(i));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (stackTrace != null) {
+                putString(buffer, stackTrace);
+            }
+            if (buffer.hasRemaining()) {
+                buffer.put(buffer.position(), END);
+            }
+            lastMillis = now;
+            return true;
+        } catch (BufferOverflowException e) {
+            // through Buffer, as a JDK 9+ compiler would link to overrides absent from Java 8
+            ((Buffer) buffer).position(start);
+            if (buffer.hasRemaining()) {
+                buffer.put(start, END);
+            }
+            while (defined.size() > definedBefore) {
+                dictionary.remove(defined.remove(defined.size() - 1));
+            }
+            return false;
+        }
+    }
+
+    private void define(final String name) {
+        if (!dictionary.containsKey(name)) {
+            buffer.put(DEFINE);
+            putVarLong(buffer, defined.size());
+            putString(buffer, name);
+            dictionary.put(name, defined.size());
+            defined.add(name);
+        }
+    }
+
+    /**
+     * @throws IOException if the segment cannot be started, leaving no segment open.
+     */
+    private void start(final int segmentIndex, final long segmentSequence, final long now) throws IOException {
+        closeSegment();
+        final FileChannel next = FileChannel.open(segment(directory, segmentIndex),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            buffer = next.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            next.close();
+            throw e;
+        }
+        channel = next;
+        buffer.putInt(MAGIC).putInt(segmentSize).putLong(segmentSequence).putLong(now);
+        buffer.put(HEADER_SIZE, END);
+        index = segmentIndex;
+        sequence = segmentSequence;
+        lastMillis = now;
+        dictionary.clear();
+        defined.clear();
+    }
+
+    /**
+     * @return the path of a segment file in the ring.
+     */
+    static Path segment(final Path directory, final int index) {
+        return directory.resolve(SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return the sequence number of a segment, or -1 if it does not exist or is not a journal segment.
+     */
+    static long sequence(final Path segment) throws IOException {
+        if (!Files.isRegularFile(segment) || Files.size(segment) < HEADER_SIZE) {
+            return -1;
+        }
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && file.read(header) >= 0) {
+                // read the whole header
+            }
+            ((Buffer) header).flip();
+            return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC ? header.getLong(8) : -1;
+        }
+    }
+
+    /**
+     * @return the level with an ordinal written in an event.
+     */
+    static Level level(final int ordinal) {
+        return LEVELS[ordinal];
+    }
+
+    static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putString(final ByteBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[(int) getVarLong(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String stackTrace(final Throwable thrown) {
+        final StringWriter stackTrace = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(stackTrace));
+        return stackTrace.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package com.ft.membership.logging;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.slf4j.event.Level;
+
+/**
+ * Renders the segments of an {@link OperationJournal} as the lines which would have been logged, oldest first.
+ *
+ * <pre>
+ *     java -cp fluent-logging.jar com.ft.membership.logging.JournalDecoder [--json | --key-value] /var/log/app/journal
+ * </pre>
+ *
+ * <p>Each event is rendered in the layout of its operation, unless one is given. Lines in the <tt>key="value"</tt>
+ * layout are prefixed with <tt>logLevel</tt>, <tt>time</tt> and <tt>category</tt>, as in the recommended logback
+ * pattern; JSON lines carry <tt>logLevel</tt> and <tt>time</tt> as usual. A stack-trace follows its line.</p>
+ */
+public final class JournalDecoder {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private JournalDecoder() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        Boolean jsonLayout = null;
+        Path directory = null;
+        for (String arg : args) {
+            if ("--json".equals(arg)) {
+                jsonLayout = true;
+            } else if ("--key-value".equals(arg)) {
+                jsonLayout = false;
+            } else if (directory == null && !arg.startsWith("--")) {
+                directory = Paths.get(arg);
+            } else {
+                directory = null;
+                break;
+            }
+        }
+        if (directory == null) {
+            System.err.println("usage: JournalDecoder [--json | --key-value] <journal directory>");
+            System.exit(2);
+        }
+        final Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        decode(directory, jsonLayout, out);
+        out.flush();
+    }
+
+    /**
+     * render every segment in a journal directory, oldest first.
+     * @param directory the journal directory
+     * @param jsonLayout true or false to render every event in JSON or <tt>key="value"</tt>, or null to render each in
+     *                   the layout it would have been logged in.
+     * @param out where to write the lines
+     * @throws IOException if a segment cannot be read, or the lines written
+     */
+    public static void decode(final Path directory, final Boolean jsonLayout, final Appendable out) throws IOException {
+        final TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                Journal.SEGMENT_PREFIX + "*" + Journal.SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                final long sequence = Journal.sequence(file);
+                if (sequence >= 0) {
+                    segments.put(sequence, file);
+                }
+            }
+        }
+        for (Path segment : segments.values()) {
+            try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+                decode(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()), jsonLayout, out);
+            }
+        }
+    }
+
+    private static void decode(final ByteBuffer segment, final Boolean jsonLayout, final Appendable out)
+            throws IOException {
+        // the time the segment was started, at the end of the header
+        long millis = segment.getLong(Journal.HEADER_SIZE - 8);
+        // through Buffer, as a JDK 9+ compiler would link to an override absent from Java 8
+        ((Buffer) segment).position(Journal.HEADER_SIZE);
+        final List<String> dictionary = new ArrayList<>();
+        try {
+            while (segment.hasRemaining()) {
+                final byte tag = segment.get();
+                if (tag == Journal.DEFINE) {
+                    Journal.getVarLong(segment);
+                    dictionary.add(Journal.getString(segment));
+                } else if (tag == Journal.EVENT) {
+                    millis += Journal.unZigZag(Journal.getVarLong(segment));
+                    decodeEvent(segment, millis, dictionary, jsonLayout, out);
+                } else {
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // the last event of a segment which was being written
+        }
+    }
+
+    private static void decodeEvent(final ByteBuffer segment, final long millis, final List<String> dictionary,
+                                    final Boolean jsonLayout, final Appendable out) throws IOException {
+        final Level level = Journal.level(segment.get());
+        final int flags = segment.get();
+        final String loggerName = dictionary.get((int) Journal.getVarLong(segment));
+        final boolean json = jsonLayout != null ? jsonLayout : (flags & Journal.JSON_LAYOUT) != 0;
+        final String time = LogClock.render(millis);
+
+        final LineEncoder encoder = LineEncoder.acquire(json);
+        try {
+            final long fields = Journal.getVarLong(segment);
+            for (long i = 0; i < fields; i++) {
+                final String name = dictionary.get((int) Journal.getVarLong(segment));
+                switch (segment.get()) {
+                    case Journal.LONG:
+                        encoder.field(name, Journal.unZigZag(Journal.getVarLong(segment)));
+                        break;
+                    case Journal.DOUBLE:
+                        encoder.field(name, segment.getDouble());
+                        break;
+                    case Journal.BOOLEAN:
+                        encoder.field(name, segment.get() != 0);
+                        break;
+                    case Journal.NAME:
+                        encoder.field(name, (Object) dictionary.get((int) Journal.getVarLong(segment)));
+                        break;
+                    case Journal.STRING:
+                        encoder.field(name, (Object) Journal.getString(segment));
+                        break;
+                    case Journal.JSON:
+                        final String value = Journal.getString(segment);
+                        encoder.field(name, json ? OBJECT_MAPPER.readTree(value) : value);
+                        break;
+                    default:
+                        encoder.field(name, (Object) null);
+                        break;
+                }
+            }
+            if (json) {
+                encoder.field(LogFormatter.LOG_LEVEL, level.name());
+                encoder.field(LogFormatter.TIME, time);
+                out.append(encoder.finish());
+            } else {
+                out.append("logLevel=\"").append(level.name())
+                        .append("\" time=\"").append(time)
+                        .append("\" category=\"").append(loggerName).append("\" ")
+                        .append(encoder.finish()).append(LINE_SEPARATOR);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            encoder.release();
+        }
+        if ((flags & Journal.STACK_TRACE) != 0) {
+            out.append(Journal.getString(segment));
+        }
+    }
+}
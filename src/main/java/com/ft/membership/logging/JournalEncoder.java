@@ -0,0 +1,145 @@
+package com.ft.membership.logging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Collects the fields of one event for the {@link Journal}, typed as they would be encoded on a line, in arrays which
+ * are re-used by each thread.
+ *
+ * <p>Values which either layout writes as a number or boolean keep their type. The values of <tt>operation</tt> and
+ * <tt>outcome</tt>, repeated on most lines, are names for the journal's dictionary. Any other value is held as its
+ * <tt>toString()</tt> or, for the JSON layout, as JSON. An event is not a line, so starting parameters are given as
+ * fields, rather than copied as {@link LineEncoder#fields(String) encoded fields}.</p>
+ */
+final class JournalEncoder extends FieldEncoder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final ThreadLocal<JournalEncoder> ENCODERS = ThreadLocal.withInitial(JournalEncoder::new);
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] primitives = new long[INITIAL_CAPACITY];
+    private String[] strings = new String[INITIAL_CAPACITY];
+    private int size;
+    private boolean jsonLayout;
+    private boolean inUse;
+
+    private JournalEncoder() {
+    }
+
+    /**
+     * @param jsonLayout whether the event would have been logged in JSON.
+     * @return an empty encoder, owned by the caller until {@link #release()}.
+     */
+    static JournalEncoder acquire(final boolean jsonLayout) {
+        JournalEncoder encoder = ENCODERS.get();
+        if (encoder.inUse) {
+            encoder = new JournalEncoder();
+        }
+        encoder.inUse = true;
+        encoder.jsonLayout = jsonLayout;
+        return encoder;
+    }
+
+    @Override
+    JournalEncoder field(final String name, final Object value) {
+        if (value == null) {
+            add(name, Journal.NULL, 0, null);
+        } else if (value instanceof String) {
+            add(name, isName(name) ? Journal.NAME : Journal.STRING, 0, (String) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || jsonLayout && (value instanceof Short || value instanceof Byte)) {
+            field(name, ((Number) value).longValue());
+        } else if (jsonLayout && (value instanceof Double || value instanceof Float)) {
+            field(name, ((Number) value).doubleValue());
+        } else if (jsonLayout && value instanceof Boolean) {
+            field(name, ((Boolean) value).booleanValue());
+        } else if (jsonLayout) {
+            try {
+                add(name, Journal.JSON, 0, JsonEncoder.OBJECT_MAPPER.writeValueAsString(value));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            add(name, Journal.STRING, 0, value.toString());
+        }
+        return this;
+    }
+
+    @Override
+    JournalEncoder field(final String name, final long value) {
+        add(name, Journal.LONG, value, null);
+        return this;
+    }
+
+    @Override
+    JournalEncoder field(final String name, final double value) {
+        add(name, Journal.DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    @Override
+    JournalEncoder field(final String name, final boolean value) {
+        add(name, Journal.BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    @Override
+    void release() {
+        Arrays.fill(strings, 0, size, null);
+        size = 0;
+        inUse = false;
+    }
+
+    boolean isJsonLayout() {
+        return jsonLayout;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(final int index) {
+        return names[index];
+    }
+
+    byte type(final int index) {
+        return types[index];
+    }
+
+    /**
+     * @return the value of a long or boolean field, or the bits of a double.
+     */
+    long longValue(final int index) {
+        return primitives[index];
+    }
+
+    /**
+     * @return the value of a string, name or JSON field.
+     */
+    String stringValue(final int index) {
+        return strings[index];
+    }
+
+    private void add(final String name, final byte type, final long primitive, final String string) {
+        if (size == names.length) {
+            final int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        names[size] = name;
+        types[size] = type;
+        primitives[size] = primitive;
+        strings[size] = string;
+        size++;
+    }
+
+    private static boolean isName(final String name) {
+        return "operation".equals(name) || "outcome".equals(name);
+    }
+}
@@ -0,0 +1,215 @@
+package com.ft.membership.logging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Streams fields, in the order given, as a single-line JSON object through a {@link JsonGenerator} and buffer which
+ * are re-used by each thread.
+ *
+ * <p>Strings, numbers and booleans are written as their native JSON types; any other value is serialized by a shared
+ * {@link ObjectMapper}. Serialization failures are reported as an {@link UncheckedIOException}.</p>
+ *
+ * <p>Fields are not checked for repeated names, which would mean decoding the starting parameters copied in with
+ * {@link #fields(String)}; a key repeated between them and a yield or failure is written twice.</p>
+ */
+final class JsonEncoder extends LineEncoder {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final ThreadLocal<JsonEncoder> ENCODERS = ThreadLocal.withInitial(JsonEncoder::new);
+
+    private final BufferWriter writer = new BufferWriter();
+    private JsonGenerator generator;
+    private boolean inUse;
+
+    private JsonEncoder() {
+    }
+
+    static JsonEncoder acquire() {
+        JsonEncoder encoder = ENCODERS.get();
+        if (encoder.inUse) {
+            encoder = new JsonEncoder();
+        }
+        encoder.inUse = true;
+        try {
+            encoder.start();
+        } catch (RuntimeException e) {
+            encoder.release();
+            throw e;
+        }
+        return encoder;
+    }
+
+    private void start() {
+        try {
+            if (generator == null) {
+                generator = OBJECT_MAPPER.getFactory().createGenerator(writer);
+                generator.setRootValueSeparator(null);
+            }
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    JsonEncoder field(final String name, final Object value) {
+        try {
+            generator.writeFieldName(name);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof String) {
+                generator.writeString((String) value);
+            } else if (value instanceof Integer || value instanceof Long
+                    || value instanceof Short || value instanceof Byte) {
+                generator.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                generator.writeNumber(((Number) value).doubleValue());
+            } else if (value instanceof BigDecimal) {
+                generator.writeNumber((BigDecimal) value);
+            } else if (value instanceof BigInteger) {
+                generator.writeNumber((BigInteger) value);
+            } else if (value instanceof Boolean) {
+                generator.writeBoolean((Boolean) value);
+            } else {
+                generator.writeObject(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    JsonEncoder field(final String name, final long value) {
+        try {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    JsonEncoder field(final String name, final double value) {
+        try {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    JsonEncoder field(final String name, final boolean value) {
+        try {
+            generator.writeFieldName(name);
+            generator.writeBoolean(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    JsonEncoder fields(final String encodedFields) {
+        if (!encodedFields.isEmpty()) {
+            try {
+                // the generator does not see raw fields, but it has already written one, so will separate the next
+                generator.writeRaw(',');
+                generator.writeRaw(encodedFields);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    String fragment() {
+        try {
+            generator.writeEndObject();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final StringBuilder buffer = writer.buffer;
+        return buffer.substring(1, buffer.length() - 1);
+    }
+
+    @Override
+    void ensureCapacity(final int capacity) {
+        writer.buffer.ensureCapacity(capacity);
+    }
+
+    @Override
+    String finish() {
+        try {
+            generator.writeEndObject();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.buffer.append(LINE_SEPARATOR).toString();
+    }
+
+    @Override
+    void release() {
+        if (generator != null && !generator.getOutputContext().inRoot()) {
+            // abandoned part way through a line; the generator cannot be rewound
+            generator = null;
+        }
+        writer.reset();
+        inUse = false;
+    }
+
+    /**
+     * an unsynchronized {@link Writer} over a re-usable buffer.
+     */
+    private static final class BufferWriter extends Writer {
+        private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            buffer.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(final int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void reset() {
+            if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                buffer = new StringBuilder(INITIAL_CAPACITY);
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ft.membership.logging;
+
+/**
+ * Writes <tt>key="value"</tt> fields, separated by spaces, in a single pass into a buffer which is re-used by each
+ * thread.
+ *
+ * <p><tt>Integer</tt> and <tt>Long</tt> values (and primitive integers) are written bare, <tt>null</tt> as <tt>null</tt>,
+ * and everything else, including primitive doubles and booleans, as its <tt>toString()</tt> in double quotes, with
+ * embedded double quotes escaped by a back-slash.</p>
+ *
+ * <p>An encoder must be {@link #release() released} when the line is complete. If a value's <tt>toString()</tt> itself
+ * logs, the nested line is given a fresh encoder rather than the thread's buffer.</p>
+ */
+final class KeyValueEncoder extends LineEncoder {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<KeyValueEncoder> ENCODERS = ThreadLocal.withInitial(KeyValueEncoder::new);
+
+    private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+    private boolean inUse;
+
+    private KeyValueEncoder() {
+    }
+
+    /**
+     * @return an empty encoder, owned by the caller until {@link #release()}.
+     */
+    static KeyValueEncoder acquire() {
+        final KeyValueEncoder encoder = ENCODERS.get();
+        if (encoder.inUse) {
+            return new KeyValueEncoder();
+        }
+        encoder.inUse = true;
+        return encoder;
+    }
+
+    @Override
+    void release() {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            buffer.setLength(0);
+        }
+        inUse = false;
+    }
+
+    @Override
+    KeyValueEncoder field(final String name, final Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return field(name, ((Number) value).longValue());
+        }
+        appendName(name);
+        appendQuoted(buffer, value);
+        return this;
+    }
+
+    @Override
+    KeyValueEncoder field(final String name, final long value) {
+        appendName(name);
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    KeyValueEncoder field(final String name, final double value) {
+        appendName(name);
+        buffer.append('"').append(value).append('"');
+        return this;
+    }
+
+    @Override
+    KeyValueEncoder field(final String name, final boolean value) {
+        appendName(name);
+        buffer.append('"').append(value).append('"');
+        return this;
+    }
+
+    @Override
+    KeyValueEncoder fields(final String encodedFields) {
+        if (!encodedFields.isEmpty()) {
+            if (buffer.length() > 0) {
+                buffer.append(' ');
+            }
+            buffer.append(encodedFields);
+        }
+        return this;
+    }
+
+    private void appendName(final String name) {
+        if (buffer.length() > 0) {
+            buffer.append(' ');
+        }
+        buffer.append(name).append('=');
+    }
+
+    @Override
+    String finish() {
+        return buffer.toString();
+    }
+
+    @Override
+    String fragment() {
+        return buffer.toString();
+    }
+
+    @Override
+    void ensureCapacity(final int capacity) {
+        buffer.ensureCapacity(capacity);
+    }
+
+    /**
+     * append a value in double quotes, escaping any double quotes within it; or <tt>null</tt>.
+     * @param sb buffer to append to
+     * @param value a value, or null
+     */
+    static void appendQuoted(final StringBuilder sb, final Object value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        final String text = String.valueOf(value.toString());
+        final int length = text.length();
+        sb.append('"');
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '"') {
+                sb.append(text, start, i).append("\\\"");
+                start = i + 1;
+            }
+        }
+        sb.append(text, start, length).append('"');
+    }
+}
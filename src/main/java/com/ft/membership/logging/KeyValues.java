@@ -0,0 +1,279 @@
+package com.ft.membership.logging;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An insertion-ordered store of key-values in flat, growable parallel arrays.
+ *
+ * <p>Putting an existing key replaces its value in its original position. A {@link #snapshot()} is frozen, and so may
+ * be shared between threads and log lines without copying.</p>
+ *
+ * <p>Primitive values are held unboxed: each entry has a {@link #type(int) type}, and the value of a primitive entry
+ * is read with {@link #longValue(int)}, {@link #doubleValue(int)} or {@link #booleanValue(int)}. The type and primitive
+ * arrays are only allocated once a primitive is put.</p>
+ */
+final class KeyValues {
+
+    static final byte OBJECT = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    // a slot not set, in ofSlots()
+    static final byte ABSENT = -1;
+
+    static final KeyValues EMPTY = new KeyValues(0, true);
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final String[] NO_KEYS = new String[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private String[] keys;
+    private Object[] values;
+    private byte[] types;
+    private long[] primitives;
+    private int size;
+    private final boolean frozen;
+
+    KeyValues() {
+        this(0, false);
+    }
+
+    private KeyValues(final int capacity, final boolean frozen) {
+        this.keys = capacity == 0 ? NO_KEYS : new String[capacity];
+        this.values = capacity == 0 ? NO_VALUES : new Object[capacity];
+        this.frozen = frozen;
+    }
+
+    /**
+     * @param keyValues a map of key-values, or null
+     * @return a frozen store of the entries of the map, in its iteration order.
+     */
+    static KeyValues of(final Map<String, Object> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return EMPTY;
+        }
+        final KeyValues store = new KeyValues();
+        store.putAll(keyValues);
+        return store.snapshot();
+    }
+
+    /**
+     * @param keys the keys of a fixed schema, known to be unique
+     * @param types the type of each slot, or {@link #ABSENT} if it is not set
+     * @param values the value of each slot holding an object
+     * @param primitives the value of each slot holding a primitive
+     * @return a frozen store of the slots set, in schema order, built without looking up any key.
+     */
+    static KeyValues ofSlots(final String[] keys, final byte[] types, final Object[] values, final long[] primitives) {
+        int count = 0;
+        boolean primitive = false;
+        for (byte type : types) {
+            if (type != ABSENT) {
+                count++;
+                primitive |= type != OBJECT;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        final KeyValues store = new KeyValues(count, true);
+        if (primitive) {
+            store.types = new byte[count];
+            store.primitives = new long[count];
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != ABSENT) {
+                store.keys[store.size] = keys[i];
+                store.values[store.size] = values[i];
+                if (primitive) {
+                    store.types[store.size] = types[i];
+                    store.primitives[store.size] = primitives[i];
+                }
+                store.size++;
+            }
+        }
+        return store;
+    }
+
+    void put(final String key, final Object value) {
+        final int index = slot(key);
+        values[index] = value;
+        if (types != null) {
+            types[index] = OBJECT;
+        }
+    }
+
+    void put(final String key, final long value) {
+        putPrimitive(key, LONG, value);
+    }
+
+    void put(final String key, final double value) {
+        putPrimitive(key, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    void put(final String key, final boolean value) {
+        putPrimitive(key, BOOLEAN, value ? 1 : 0);
+    }
+
+    private void putPrimitive(final String key, final byte type, final long bits) {
+        final int index = slot(key);
+        if (types == null) {
+            types = new byte[keys.length];
+            primitives = new long[keys.length];
+        }
+        values[index] = null;
+        types[index] = type;
+        primitives[index] = bits;
+    }
+
+    void putAll(final Map<String, Object> keyValues) {
+        ensureCapacity(size + keyValues.size());
+        for (Map.Entry<String, Object> entry : keyValues.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void putAll(final KeyValues keyValues) {
+        ensureCapacity(size + keyValues.size);
+        for (int i = 0; i < keyValues.size; i++) {
+            final String key = keyValues.keys[i];
+            switch (keyValues.type(i)) {
+                case LONG:
+                    put(key, keyValues.longValue(i));
+                    break;
+                case DOUBLE:
+                    put(key, keyValues.doubleValue(i));
+                    break;
+                case BOOLEAN:
+                    put(key, keyValues.booleanValue(i));
+                    break;
+                default:
+                    put(key, keyValues.values[i]);
+                    break;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    String key(final int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return one of {@link #OBJECT}, {@link #LONG}, {@link #DOUBLE} or {@link #BOOLEAN}.
+     */
+    byte type(final int index) {
+        return types == null ? OBJECT : types[index];
+    }
+
+    /**
+     * @return the value, boxed if it is a primitive.
+     */
+    Object value(final int index) {
+        switch (type(index)) {
+            case LONG:
+                return longValue(index);
+            case DOUBLE:
+                return doubleValue(index);
+            case BOOLEAN:
+                return booleanValue(index);
+            default:
+                return values[index];
+        }
+    }
+
+    long longValue(final int index) {
+        return primitives[index];
+    }
+
+    double doubleValue(final int index) {
+        return Double.longBitsToDouble(primitives[index]);
+    }
+
+    boolean booleanValue(final int index) {
+        return primitives[index] != 0;
+    }
+
+    /**
+     * @return a frozen copy of this store; or this store, if already frozen.
+     */
+    KeyValues snapshot() {
+        if (frozen) {
+            return this;
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        final KeyValues snapshot = new KeyValues(size, true);
+        System.arraycopy(keys, 0, snapshot.keys, 0, size);
+        System.arraycopy(values, 0, snapshot.values, 0, size);
+        if (types != null) {
+            snapshot.types = Arrays.copyOf(types, size);
+            snapshot.primitives = Arrays.copyOf(primitives, size);
+        }
+        snapshot.size = size;
+        return snapshot;
+    }
+
+    /**
+     * replace each lazy value by its computed value, so that its supplier runs on this thread rather than on whichever
+     * renders the entries.
+     */
+    void resolveLazyValues() {
+        checkMutable();
+        for (int i = 0; i < size; i++) {
+            if (values[i] instanceof LazyValue) {
+                values[i] = ((LazyValue) values[i]).get();
+            }
+        }
+    }
+
+    /**
+     * remove every entry, keeping the arrays for reuse.
+     */
+    void clear() {
+        checkMutable();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return the index of the key, appending it if not already present.
+     */
+    private int slot(final String key) {
+        checkMutable();
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(key, keys[i])) {
+                return i;
+            }
+        }
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        return size++;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("key-values are frozen");
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        checkMutable();
+        if (capacity > keys.length) {
+            final int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, keys.length * 2));
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            if (types != null) {
+                types = Arrays.copyOf(types, newCapacity);
+                primitives = Arrays.copyOf(primitives, newCapacity);
+            }
+        }
+    }
+}
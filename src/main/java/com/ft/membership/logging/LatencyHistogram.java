@@ -0,0 +1,92 @@
+package com.ft.membership.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, with outcome counters, for one operation name.
+ *
+ * <p>As in an HDR histogram, durations are counted in log-linear buckets: exactly below {@value #SUB_BUCKETS}
+ * nanoseconds, and above that in {@value #HALF_SUB_BUCKETS} buckets per power of two, so that a bucket's bounds are
+ * within about 3% of each other. Durations beyond {@link #MAX_TRACKABLE_NANOS} (over four hours) are counted in the
+ * last bucket.</p>
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 38;
+    static final long MAX_TRACKABLE_NANOS = (1L << (MAX_SHIFT + SUB_BUCKET_BITS)) - 1;
+    private static final int BUCKETS = (MAX_SHIFT + 2) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    // never reset, as a reset racing an increment may lose it; a snapshot reports the growth since the last reset
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // guarded by this
+    private long resetSuccesses;
+    private long resetFailures;
+    private long resetTotalNanos;
+
+    void record(final long nanos, final boolean success) {
+        final long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        counts.incrementAndGet(bucket(value));
+        totalNanos.add(value);
+        (success ? successes : failures).increment();
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @param reset whether to zero the counts as they are read; a duration recorded concurrently is counted in either
+     *              this snapshot or the next, though not necessarily in all of its totals at once.
+     */
+    synchronized OperationMetrics.Snapshot snapshot(final String operationName, final boolean reset) {
+        final long[] snapshotCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshotCounts[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+        final long successesSum = successes.sum();
+        final long failuresSum = failures.sum();
+        final long totalNanosSum = totalNanos.sum();
+        final OperationMetrics.Snapshot snapshot = new OperationMetrics.Snapshot(operationName,
+                successesSum - resetSuccesses,
+                failuresSum - resetFailures,
+                totalNanosSum - resetTotalNanos,
+                reset ? maxNanos.getAndSet(0) : maxNanos.get(),
+                snapshotCounts);
+        if (reset) {
+            resetSuccesses = successesSum;
+            resetFailures = failuresSum;
+            resetTotalNanos = totalNanosSum;
+        }
+        return snapshot;
+    }
+
+    static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = (64 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the greatest duration counted in a bucket.
+     */
+    static long highestValueIn(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / HALF_SUB_BUCKETS - 1;
+        final long mantissa = bucket - shift * HALF_SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ft.membership.logging;
+
+import java.util.function.Supplier;
+
+/**
+ * A parameter value which is only computed when a line carrying it is formatted, and then at most once.
+ */
+final class LazyValue {
+
+    private Supplier<?> supplier;
+    private Object value;
+
+    LazyValue(final Supplier<?> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * @param value a parameter value
+     * @return the value, computed if it is lazy.
+     */
+    static Object resolve(final Object value) {
+        return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+    }
+
+    synchronized Object get() {
+        if (supplier != null) {
+            value = supplier.get();
+            supplier = null;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
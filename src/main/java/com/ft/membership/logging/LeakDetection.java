@@ -0,0 +1,117 @@
+package com.ft.membership.logging;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Detection of operations which are garbage-collected without being terminated by {@link Operation#wasSuccessful()}
+ * or {@link Operation#wasFailure()}, and so never log their outcome.
+ *
+ * <pre>
+ *     LeakDetection.enable(128);
+ * </pre>
+ *
+ * <p>One in every <tt>samplingInterval</tt> operations started or initiated is tracked by a phantom reference, with the
+ * stack-trace of where it was started. When a tracked operation is found to have been collected unterminated, it is
+ * logged as a failure at <tt>ERROR</tt>, with that stack-trace. Collected operations are looked for whenever another is
+ * tracked, so reports follow the garbage collector, and the next sampled operation, by some while.</p>
+ *
+ * <p>When disabled, the cost to each operation is a single read of a volatile field.</p>
+ */
+public final class LeakDetection {
+
+    static final String LEAKED = "Programmer error: operation garbage-collected before wasSuccessful() or wasFailure() called.";
+
+    private static final ReferenceQueue<Operation> COLLECTED = new ReferenceQueue<>();
+    // keeps the trackers themselves reachable until their operation is terminated or collected
+    private static final Set<Tracker> TRACKED = ConcurrentHashMap.newKeySet();
+
+    private static volatile int samplingInterval;
+
+    private LeakDetection() {
+    }
+
+    /**
+     * track one in every <tt>samplingInterval</tt> operations.
+     * @param samplingInterval 1 to track every operation, or more to sample them
+     */
+    public static void enable(final int samplingInterval) {
+        if (samplingInterval < 1) {
+            throw new IllegalArgumentException("require samplingInterval of at least 1");
+        }
+        LeakDetection.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * stop tracking operations.
+     */
+    public static void disable() {
+        samplingInterval = 0;
+    }
+
+    /**
+     * @return a tracker for a newly started operation, if it is sampled; otherwise null.
+     */
+    static Tracker track(final Operation operation) {
+        final int interval = samplingInterval;
+        if (interval == 0 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0)) {
+            return null;
+        }
+        reportCollected();
+        final Tracker tracker = new Tracker(operation);
+        TRACKED.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * report each tracked operation whose tracker the collector has queued; tests may queue one themselves, with
+     * {@link Reference#enqueue()}, rather than wait for the collector.
+     */
+    static void reportCollected() {
+        Reference<? extends Operation> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            final Tracker tracker = (Tracker) collected;
+            if (TRACKED.remove(tracker)) {
+                tracker.report();
+            }
+        }
+    }
+
+    /**
+     * what is needed to report an operation, without keeping it reachable.
+     */
+    static final class Tracker extends PhantomReference<Operation> {
+        private final String operationName;
+        private final KeyValues parameters;
+        private final boolean jsonLayout;
+        private final LogFormatter formatter;
+        private final IllegalStateException startedAt = new IllegalStateException(LEAKED);
+
+        private Tracker(final Operation operation) {
+            super(operation, COLLECTED);
+            this.operationName = operation.getName();
+            this.parameters = operation.getParameters();
+            this.jsonLayout = operation.isJsonLayout();
+            // as Operation.close(), an operation without a log context reports through the logger for Operation
+            this.formatter = operation.getActorOrLogger() == null
+                    ? LogFormatter.forActorOrLogger(operation) : operation.getFormatter();
+        }
+
+        /**
+         * stop tracking an operation which has been terminated.
+         */
+        void close() {
+            TRACKED.remove(this);
+            clear();
+        }
+
+        private void report() {
+            final Operation leaked = Operation.leaked(operationName, parameters, jsonLayout, formatter);
+            formatter.logError(leaked, leaked.wasFailure().throwingException(startedAt), true);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ft.membership.logging;
+
+/**
+ * Writes the fields of one log line, in the order given, for one of the layouts.
+ *
+ * <p>Encoders are per-thread and must be {@link #release() released} once the line has been obtained from
+ * {@link #finish()}.</p>
+ */
+abstract class LineEncoder extends FieldEncoder {
+
+    /**
+     * @param jsonLayout whether to encode JSON rather than <tt>key="value"</tt> pairs.
+     * @return an empty encoder, owned by the caller until {@link #release()}.
+     */
+    static LineEncoder acquire(final boolean jsonLayout) {
+        return jsonLayout ? JsonEncoder.acquire() : KeyValueEncoder.acquire();
+    }
+
+    /**
+     * @param jsonLayout whether to encode JSON rather than <tt>key="value"</tt> pairs.
+     * @param expectedLength the expected length of the line, to size the buffer for.
+     * @return an empty encoder, owned by the caller until {@link #release()}.
+     */
+    static LineEncoder acquire(final boolean jsonLayout, final int expectedLength) {
+        final LineEncoder encoder = acquire(jsonLayout);
+        encoder.ensureCapacity(expectedLength);
+        return encoder;
+    }
+
+    @Override
+    abstract LineEncoder field(String name, Object value);
+
+    @Override
+    abstract LineEncoder field(String name, long value);
+
+    @Override
+    abstract LineEncoder field(String name, double value);
+
+    @Override
+    abstract LineEncoder field(String name, boolean value);
+
+    /**
+     * append fields encoded by {@link #fragment()} for the same layout; in JSON, only after at least one other field.
+     * @param encodedFields the encoded fields, possibly empty
+     * @return the encoder
+     */
+    abstract LineEncoder fields(String encodedFields);
+
+    /**
+     * @return the fields written so far, encoded to be appended to another line by {@link #fields(String)}, rather
+     *         than as a complete line.
+     */
+    abstract String fragment();
+
+    /**
+     * @return the complete line.
+     */
+    abstract String finish();
+
+    abstract void ensureCapacity(int capacity);
+}
@@ -0,0 +1,40 @@
+package com.ft.membership.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A running estimate of the length of an operation's lines, shared by all operations of the same name, with which to
+ * size the buffer for each line.
+ */
+final class LineLength {
+
+    private static final ConcurrentMap<String, LineLength> BY_OPERATION_NAME = new ConcurrentHashMap<>();
+
+    // not volatile: a stale or lost update only costs a buffer resize
+    private int estimate;
+
+    private LineLength() {
+    }
+
+    static LineLength forOperation(final String operationName) {
+        final LineLength lineLength = BY_OPERATION_NAME.get(operationName);
+        return lineLength != null ? lineLength : BY_OPERATION_NAME.computeIfAbsent(operationName, name -> new LineLength());
+    }
+
+    /**
+     * @return a capacity likely to hold the next line, with a margin above the average.
+     */
+    int expected() {
+        final int average = estimate;
+        return average + (average >> 2);
+    }
+
+    /**
+     * @param length the length of a line just encoded, moving the average an eighth of the way towards it.
+     */
+    void learn(final int length) {
+        final int average = estimate;
+        estimate = average == 0 ? length : average + ((length - average) >> 3);
+    }
+}
@@ -0,0 +1,213 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The clock which times lines are stamped with, and the rendering of those times.
+ *
+ * <pre>
+ *     LogClock.coarse(10, TimeUnit.MILLISECONDS);
+ * </pre>
+ *
+ * <p>The system clock is used by default. Any {@link Clock} may be used instead, such as {@link Clock#fixed} to make
+ * times deterministic in tests, or a coarse clock, which is read from a field updated by a background thread at a
+ * fixed resolution rather than from the system on every line.</p>
+ *
+ * <p>The most recently rendered time is cached and shared between threads: a line in the same millisecond re-uses it,
+ * and one in the same second rewrites only its milliseconds.</p>
+ */
+public final class LogClock {
+
+    private static final Object LOCK = new Object();
+    private static volatile Clock clock = Clock.systemUTC();
+    private static volatile Rendered rendered = new Rendered(Long.MIN_VALUE, null);
+
+    private LogClock() {
+    }
+
+    /**
+     * stamp lines with the times of a clock, replacing any previous clock.
+     * @param clock the clock; its zone is ignored, as times are always rendered in UTC.
+     */
+    public static void use(final Clock clock) {
+        checkNotNull(clock, "require clock");
+        synchronized (LOCK) {
+            stopCoarse();
+            LogClock.clock = clock;
+        }
+    }
+
+    /**
+     * stamp lines with the time read by a background thread once every <tt>resolution</tt>, replacing any previous
+     * clock.
+     * @param resolution how often to read the system clock
+     * @param unit unit of resolution
+     */
+    public static void coarse(final long resolution, final TimeUnit unit) {
+        if (resolution < 1) {
+            throw new IllegalArgumentException("require positive resolution");
+        }
+        synchronized (LOCK) {
+            stopCoarse();
+            clock = new CoarseClock(unit.toNanos(resolution));
+        }
+    }
+
+    /**
+     * stamp lines with the system clock again.
+     */
+    public static void reset() {
+        use(Clock.systemUTC());
+    }
+
+    /**
+     * @return the current time, in milliseconds since the epoch.
+     */
+    static long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * @return the current time, rendered by {@link LogFormatter#DATE_TIME_FORMATTER} in UTC.
+     */
+    static String timestamp() {
+        return render(clock.millis());
+    }
+
+    /**
+     * @param millis a time in milliseconds since the epoch
+     * @return the time, rendered by {@link LogFormatter#DATE_TIME_FORMATTER} in UTC.
+     */
+    static String render(final long millis) {
+        final Rendered last = rendered;
+        if (last.millis == millis) {
+            return last.text;
+        }
+        final String text;
+        if (last.text != null && Math.floorDiv(last.millis, 1000L) == Math.floorDiv(millis, 1000L)) {
+            final char[] chars = last.text.toCharArray();
+            final int milliseconds = (int) Math.floorMod(millis, 1000L);
+            chars[Rendered.MILLISECONDS] = (char) ('0' + milliseconds / 100);
+            chars[Rendered.MILLISECONDS + 1] = (char) ('0' + milliseconds / 10 % 10);
+            chars[Rendered.MILLISECONDS + 2] = (char) ('0' + milliseconds % 10);
+            text = new String(chars);
+        } else {
+            text = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC)
+                    .format(LogFormatter.DATE_TIME_FORMATTER);
+        }
+        if (text.length() == Rendered.LENGTH) {
+            // a year of other than four digits would move the milliseconds
+            rendered = new Rendered(millis, text);
+        }
+        return text;
+    }
+
+    private static void stopCoarse() {
+        if (clock instanceof CoarseClock) {
+            ((CoarseClock) clock).stop();
+        }
+    }
+
+    /**
+     * a time and its rendering.
+     */
+    private static final class Rendered {
+        // yyyy-MM-ddTHH:mm:ss.SSSZ
+        static final int LENGTH = 24;
+        static final int MILLISECONDS = 20;
+
+        final long millis;
+        final String text;
+
+        Rendered(final long millis, final String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+
+    /**
+     * a clock whose time is read from the system by a background thread, at a fixed resolution.
+     */
+    private static final class CoarseClock extends Clock {
+        private final Thread ticker;
+        private volatile long millis = System.currentTimeMillis();
+        private volatile boolean running = true;
+
+        CoarseClock(final long resolutionNanos) {
+            this.ticker = new Thread(() -> {
+                while (running) {
+                    LockSupport.parkNanos(this, resolutionNanos);
+                    millis = System.currentTimeMillis();
+                }
+            }, "fluent-logging-clock");
+            this.ticker.setDaemon(true);
+            this.ticker.start();
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(ticker);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return zone.equals(ZoneOffset.UTC) ? this : new ZonedCoarseClock(this, zone);
+        }
+    }
+
+    /**
+     * a coarse clock seen from another time-zone, reading the same ticking time.
+     */
+    private static final class ZonedCoarseClock extends Clock {
+        private final CoarseClock source;
+        private final ZoneId zone;
+
+        ZonedCoarseClock(final CoarseClock source, final ZoneId zone) {
+            this.source = source;
+            this.zone = zone;
+        }
+
+        @Override
+        public long millis() {
+            return source.millis();
+        }
+
+        @Override
+        public Instant instant() {
+            return source.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return source.withZone(zone);
+        }
+    }
+}
@@ -1,267 +1,638 @@
 package com.ft.membership.logging;
 
-import static com.ft.membership.logging.LogFormatter.NameAndValue.nameAndValue;
 import static com.ft.membership.logging.Preconditions.checkNotNull;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import java.time.ZoneOffset;
+import java.io.UncheckedIOException;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 public class LogFormatter {
     private static final String OUTCOME_IS_SUCCESS = "success";
     private static final String OUTCOME_IS_FAILURE = "failure";
-    private static final String LOG_LEVEL = "logLevel";
-    private static final String TIME = "time";
-    private static final String INFO = "INFO";
-    private static final String DEBUG = "DEBUG";
-    private static final String ERROR = "ERROR";
-    private static final String WARN = "WARN";
+    static final String LOG_LEVEL = "logLevel";
+    static final String TIME = "time";
+    private static final String DURATION = "durationMs";
+    private static final String SKIPPED = "skipped";
+    private static final String INTERMEDIATES = "intermediates";
+    private static final String SUPPRESSED = "suppressed";
+    private static final String STACK_FINGERPRINT = "stackFingerprint";
+    private static final String CAUSES = "causes";
     private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSz";
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
+    static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
+
+    /**
+     * formatters for actors, resolved once per actor class rather than on every log call.
+     */
+    private static final ClassValue<LogFormatter> ACTOR_FORMATTERS = new ClassValue<LogFormatter>() {
+        @Override
+        protected LogFormatter computeValue(final Class<?> actorClass) {
+            return new LogFormatter(LoggerFactory.getLogger(actorClass));
+        }
+    };
 
     private final Logger logger;
-    private final ObjectWriter objectWriter;
 
-    LogFormatter(Object actorOrLogger) {
-        objectWriter = new ObjectMapper().writer();
+    private LogFormatter(final Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * obtain a formatter for a log context.
+     * @param actorOrLogger an instance of {@link Logger}, or an object whose class names the logger.
+     * @return a LogFormatter, shared between all actors of the same class.
+     */
+    static LogFormatter forActorOrLogger(final Object actorOrLogger) {
         checkNotNull(actorOrLogger,"require actor or logger");
         if (actorOrLogger instanceof Logger) {
-            logger = (Logger) actorOrLogger;
-        } else {
-            logger = LoggerFactory.getLogger(actorOrLogger.getClass());
+            return new LogFormatter((Logger) actorOrLogger);
+        }
+        return ACTOR_FORMATTERS.get(actorOrLogger.getClass());
+    }
+
+    /**
+     * @return whether a {@link Yield} could be logged, at <tt>INFO</tt> or <tt>DEBUG</tt>.
+     */
+    boolean isYieldEnabled() {
+        return logger.isInfoEnabled() || logger.isDebugEnabled();
+    }
+
+    /**
+     * @return whether an {@link IntermediateYield} could be logged at <tt>WARN</tt> or <tt>ERROR</tt>.
+     */
+    boolean isIntermediateEnabled() {
+        return logger.isErrorEnabled() || logger.isWarnEnabled();
+    }
+
+    /**
+     * @return whether lines at a level would be logged.
+     */
+    boolean isEnabled(final Level level) {
+        switch (level) {
+            case ERROR:
+                return logger.isErrorEnabled();
+            case WARN:
+                return logger.isWarnEnabled();
+            case INFO:
+                return logger.isInfoEnabled();
+            case DEBUG:
+                return logger.isDebugEnabled();
+            default:
+                return logger.isTraceEnabled();
         }
     }
 
     void logStart(final Operation operation) {
-        final Collection<NameAndValue> msgParams = new ArrayList<NameAndValue>();
-        addOperation(operation, msgParams);
-        addOperationParameters(operation, msgParams);
         if (logger.isInfoEnabled()) {
-            logger.info(buildMsg(operation, msgParams, INFO));
+            logYield(Level.INFO, operation, null, false, true);
+        }
+    }
+
+    /**
+     * log an intermediate yield, which does not terminate the operation.
+     */
+    void logIntermediate(final Level level, final Operation operation, final Yield yield) {
+        switch (level) {
+            case ERROR:
+                logError(operation, yield, false);
+                break;
+            case WARN:
+                logWarn(operation, yield, false);
+                break;
+            case INFO:
+                logInfo(operation, yield, false);
+                break;
+            default:
+                logDebug(operation, yield, false);
+                break;
         }
     }
 
     void logInfo(final Operation operation, Yield yield, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, yield);
         }
 
         if (logger.isInfoEnabled()) {
-            final Collection<NameAndValue> msgParams = new ArrayList<NameAndValue>();
-            addOperation(operation, msgParams);
-            if (terminateOperation) {
-                addOutcome(OUTCOME_IS_SUCCESS, msgParams);
-            }
-            addOperationParameters(operation, msgParams);
-            addYield(yield, msgParams);
-            logger.info(buildMsg(operation, msgParams, INFO));
+            logYield(Level.INFO, operation, yield, terminateOperation, true);
         }
     }
 
-    private String buildMsg(Operation operation, final Collection<NameAndValue> msgParams, String logLevel) {
-        return operation.isJsonLayout() ? buildMsgJson(msgParams, logLevel) : buildMsgString(msgParams);
-    }
-    
     void logDebug(Operation operation, Yield yield, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, yield);
         }
 
         if (logger.isDebugEnabled()) {
-            final Collection<NameAndValue> msgParams = new ArrayList<NameAndValue>();
-            addOperation(operation, msgParams);
-            if (terminateOperation) {
-              addOutcome(OUTCOME_IS_SUCCESS, msgParams);
-            }
-            addOperationParameters(operation, msgParams);
-            addYield(yield, msgParams);
-            logger.debug(buildMsg(operation, msgParams, DEBUG));
+            logYield(Level.DEBUG, operation, yield, terminateOperation, true);
         }
     }
 
     void logInfo(Operation operation, Failure failure, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, failure, Level.INFO);
         }
         
         if (logger.isInfoEnabled()) {
-            String failureMessage = buildFailureMessage(operation, failure, INFO);
-            logger.info(failureMessage);
+            logFailure(Level.INFO, operation, failure);
         }
     }
 
     void logWarn(Operation operation, Failure failure, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, failure, Level.WARN);
         }
 
         if (logger.isWarnEnabled()) {
-            String failureMessage = buildFailureMessage(operation, failure, WARN);
-            logger.warn(failureMessage);
+            logFailure(Level.WARN, operation, failure);
         }
     }
 
     void logWarn(Operation operation, Yield yield, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, yield);
         }
 
         if (logger.isWarnEnabled()) {
-            final Collection<NameAndValue> msgParams = new ArrayList<NameAndValue>();
-            addOperation(operation, msgParams);
-            addYield(yield, msgParams);
-
-            logger.warn(buildMsg(operation, msgParams, WARN));
+            logYield(Level.WARN, operation, yield, false, false);
         }
     }
 
     void logError(final Operation operation, Failure failure, boolean terminateOperation) {
         if (terminateOperation) {
-          operation.terminated();
+          terminate(operation, failure, Level.ERROR);
         }
         
         if (logger.isErrorEnabled()) {
-            String failureMessage = buildFailureMessage(operation, failure, ERROR);
-
-            if (failure.didThrow()) {
-                logger.error(failureMessage, failure.getThrown());
-            } else {
-                logger.error(failureMessage);
-            }
+            logFailure(Level.ERROR, operation, failure);
         }
     }
 
 
     void logError(Operation operation, Yield yield, boolean terminateOperation) {
         if (terminateOperation) {
-            operation.terminated();
+            terminate(operation, yield);
         }
 
         if (logger.isErrorEnabled()) {
-            final Collection<NameAndValue> msgParams = new ArrayList<>();
-            addOperation(operation, msgParams);
-            addYield(yield, msgParams);
-
-            logger.error(buildMsg(operation, msgParams, ERROR));
-        }
-    }
-
-    private String buildFailureMessage(final Operation operation, Failure failure, String logLevel) {
-        final Collection<NameAndValue> msgParams = new ArrayList<NameAndValue>();
-        addOperation(operation, msgParams);
-        addOutcome(OUTCOME_IS_FAILURE, msgParams);
-        addFailureMessage(failure, msgParams);
-        addOperationParameters(operation, msgParams);
-        addFailureDetails(failure, msgParams);
-        return buildMsg(operation, msgParams, logLevel);
-    }
-    
-    private String buildMsgString(final Collection<NameAndValue> msgParams) {
-        final StringBuilder sb = new StringBuilder();
-        boolean addSeperator = false;
-        for (NameAndValue msgParam : msgParams) {
-            if (addSeperator) {
-                sb.append(" ");
+            logYield(Level.ERROR, operation, yield, false, false);
+        }
+    }
+
+    /**
+     * terminate the operation with a success, dropping any buffered intermediate lines, or counting them on the yield.
+     */
+    private void terminate(final Operation operation, final Yield yield) {
+        yield.setDurationNanos(operation.terminated(true));
+        final IntermediateTrail trail = operation.takeIntermediateTrail();
+        if (trail != null && trail.isCounting()) {
+            yield.setIntermediates(trail.count());
+        }
+    }
+
+    /**
+     * terminate the operation with a failure, logging any buffered intermediate lines before it.
+     */
+    private void terminate(final Operation operation, final Failure failure, final Level level) {
+        failure.setDurationNanos(operation.terminated(false));
+        final IntermediateTrail trail = operation.takeIntermediateTrail();
+        if (trail != null) {
+            trail.flush(operation, level);
+        }
+    }
+
+    private void logYield(Level level, Operation operation, Yield yield, boolean success, boolean withParameters) {
+        final SamplingPolicy sampling = operation.getSampling();
+        if (sampling != null) {
+            final long skipped = sampling.sample(yield == null ? SamplingPolicy.START
+                    : success ? SamplingPolicy.SUCCESS : SamplingPolicy.INTERMEDIATE);
+            if (skipped == SamplingPolicy.SKIP) {
+                LoggingStatistics.skipped();
+                return;
+            }
+            if (yield == null) {
+                // the start of the operation, which has no yield of its own to carry the count
+                yield = new Yield(operation);
+            }
+            yield.setSkipped(skipped);
+        }
+        final Journal journal = OperationJournal.journal();
+        if (journal != null) {
+            journal(journal, level, operation, yield, null, success, withParameters, null);
+            return;
+        }
+        final AsyncDispatcher dispatcher = operation.isAsync() ? AsyncLogging.dispatcher() : null;
+        if (dispatcher != null && encodedBeforePublishing(operation, withParameters)
+                && dispatcher.publish(this, level, operation, yield, success, withParameters)) {
+            return;
+        }
+        if (operation.isDeferredRendering()) {
+            write(level, new DeferredMessage(this, level, operation, yield, null, success, withParameters), null);
+        } else {
+            final String line = buildYieldMessage(operation, yield, success, withParameters, level, LogClock.millis());
+            write(level, learn(operation, line), null);
+        }
+    }
+
+    private void logFailure(Level level, Operation operation, Failure failure) {
+        // only an ERROR carries the stack-trace
+        Throwable thrown = level == Level.ERROR && failure.didThrow() ? failure.getThrown() : null;
+        final SuppressionTable suppression = FailureSuppression.table();
+        if (suppression != null && suppression.suppress(this, level, operation, failure)) {
+            LoggingStatistics.suppressed();
+            return;
+        }
+        final StackTraceFingerprints.Seen seen = thrown == null ? null : StackTraceFingerprints.seen();
+        if (seen != null) {
+            final String fingerprint = seen.fingerprint(thrown);
+            if (seen.firstSighting(fingerprint)) {
+                failure.setStackFingerprint(fingerprint, null);
+            } else {
+                failure.setStackFingerprint(fingerprint, StackTraceFingerprints.causes(thrown));
+                thrown = null;
+            }
+        }
+        final Journal journal = OperationJournal.journal();
+        if (journal != null) {
+            journal(journal, level, operation, null, failure, false, true, thrown);
+            return;
+        }
+        final AsyncDispatcher dispatcher = operation.isAsync() ? AsyncLogging.dispatcher() : null;
+        if (dispatcher != null && encodedBeforePublishing(operation, true)
+                && dispatcher.publish(this, level, operation, failure, thrown)) {
+            return;
+        }
+        if (operation.isDeferredRendering()) {
+            write(level, new DeferredMessage(this, level, operation, null, failure, false, true), thrown);
+        } else {
+            write(level, learn(operation, buildFailureMessage(operation, failure, level, LogClock.millis())), thrown);
+        }
+    }
+
+    /**
+     * log a failure which has already been through suppression and fingerprinting, without its stack-trace.
+     */
+    void logSummary(final Level level, final Operation operation, final Failure failure) {
+        final Journal journal = OperationJournal.journal();
+        if (journal != null) {
+            journal(journal, level, operation, null, failure, false, true, null);
+        } else {
+            write(level, learn(operation, buildFailureMessage(operation, failure, level, LogClock.millis())), null);
+        }
+    }
+
+    /**
+     * append an event to the journal, rather than logging its line.
+     */
+    private void journal(final Journal journal, final Level level, final Operation operation, final Yield yield,
+                         final Failure failure, final boolean success, final boolean withParameters,
+                         final Throwable thrown) {
+        final JournalEncoder encoder = JournalEncoder.acquire(operation.isJsonLayout());
+        try {
+            // an event is not a line to copy encoded parameters into, so they are added as named values
+            if (failure != null) {
+                addFailureOutcome(operation, failure, encoder);
+                addParametersAsNamedValues(encoder, operation.getParameters());
+                addFailureFields(failure, encoder);
+            } else {
+                addYieldOutcome(operation, success, encoder);
+                if (withParameters) {
+                    addParametersAsNamedValues(encoder, operation.getParameters());
+                }
+                addYieldFields(yield, encoder);
             }
-            sb.append(msgParam);
-            addSeperator = true;
+            final long start = LoggingStatistics.start();
+            journal.append(level, logger.getName(), encoder, thrown);
+            LoggingStatistics.written(level, start);
+        } catch (UncheckedIOException e) {
+            failedToSerialize(e);
+        } finally {
+            encoder.release();
         }
-        return sb.toString();
     }
 
-    private String buildMsgJson(final Collection<NameAndValue> msgParams, String logLevel) {
+    /**
+     * hand a formatted message to the logger.
+     * @param level the level, already known to be enabled
+     * @param message the message
+     * @param thrown a throwable to log with the message, or null
+     */
+    void write(final Level level, final String message, final Throwable thrown) {
+        final long start = LoggingStatistics.start();
+        try {
+            final LogSink sink = LogSinks.sink();
+            if (sink != null) {
+                sink.write(level, logger.getName(), message, thrown);
+                return;
+            }
+            switch (level) {
+                case ERROR:
+                    if (thrown != null) {
+                        logger.error(message, thrown);
+                    } else {
+                        logger.error(message);
+                    }
+                    break;
+                case WARN:
+                    logger.warn(message);
+                    break;
+                case INFO:
+                    logger.info(message);
+                    break;
+                case DEBUG:
+                    logger.debug(message);
+                    break;
+                default:
+                    logger.trace(message);
+                    break;
+            }
+        } finally {
+            LoggingStatistics.written(level, start);
+        }
+    }
+
+    /**
+     * hand a message to the logger, to be rendered only if it is written.
+     * @param level the level, already known to be enabled
+     * @param message the message
+     * @param thrown a throwable to log with the message, or null
+     */
+    void write(final Level level, final DeferredMessage message, final Throwable thrown) {
+        if (LogSinks.sink() != null) {
+            // a sink has no filters to skip rendering for
+            write(level, message.toString(), thrown);
+            return;
+        }
+        final long start = LoggingStatistics.start();
+        try {
+            switch (level) {
+                case ERROR:
+                    if (thrown != null) {
+                        logger.error("{}", message, thrown);
+                    } else {
+                        logger.error("{}", message);
+                    }
+                    break;
+                case WARN:
+                    logger.warn("{}", message);
+                    break;
+                case INFO:
+                    logger.info("{}", message);
+                    break;
+                case DEBUG:
+                    logger.debug("{}", message);
+                    break;
+                default:
+                    logger.trace("{}", message);
+                    break;
+            }
+        } finally {
+            LoggingStatistics.written(level, start);
+        }
+    }
 
-        addLogLevalAndTime(msgParams, logLevel);
-        Map<String, Object> map = new HashMap<>();
-        msgParams.stream().forEach(nameAndValue -> {
-            map.put(nameAndValue.getName(), nameAndValue.getValue());
-        });
+    /**
+     * @param failure a failure, or null for a yield or the start of the operation
+     * @return the message for a failure, or otherwise as {@link #buildYieldMessage}
+     */
+    String buildMessage(final Operation operation, Yield yield, Failure failure, boolean success, boolean withParameters,
+                        Level logLevel, long millis) {
+        return failure != null
+                ? buildFailureMessage(operation, failure, logLevel, millis)
+                : buildYieldMessage(operation, yield, success, withParameters, logLevel, millis);
+    }
+
+    /**
+     * @param operation the operation
+     * @param yield a yield, or null when logging the start of the operation
+     * @param success whether to include a successful outcome
+     * @param withParameters whether to include the operation's starting parameters
+     * @param logLevel the level, for the JSON layout
+     * @param millis the time of the line, for the JSON layout
+     * @return the message
+     */
+    String buildYieldMessage(final Operation operation, Yield yield, boolean success, boolean withParameters,
+                             Level logLevel, long millis) {
+        try {
+            final long start = LoggingStatistics.start();
+            final String parameters = withParameters ? encodedParameters(operation) : null;
+            final LineEncoder encoder = acquire(operation);
+            try {
+                addYieldOutcome(operation, success, encoder);
+                if (parameters != null) {
+                    encoder.fields(parameters);
+                }
+                addYieldFields(yield, encoder);
+                return finish(operation, encoder, logLevel, millis, start);
+            } finally {
+                encoder.release();
+            }
+        } catch (UncheckedIOException e) {
+            return failedToSerialize(e);
+        }
+    }
 
-        String jsonResult = "";
+    String buildFailureMessage(final Operation operation, Failure failure, Level logLevel, long millis) {
         try {
-            jsonResult = objectWriter.writeValueAsString(map).concat(System.lineSeparator());
-        } catch (JsonProcessingException e) {
-            logger.info("Failed to serialize the object to JSON, error={}", e.getLocalizedMessage());
+            final long start = LoggingStatistics.start();
+            final String parameters = encodedParameters(operation);
+            final LineEncoder encoder = acquire(operation);
+            try {
+                addFailureOutcome(operation, failure, encoder);
+                encoder.fields(parameters);
+                addFailureFields(failure, encoder);
+                return finish(operation, encoder, logLevel, millis, start);
+            } finally {
+                encoder.release();
+            }
+        } catch (UncheckedIOException e) {
+            return failedToSerialize(e);
+        }
+    }
+
+    /**
+     * add the fields which precede the starting parameters of a yield, or the start of the operation.
+     */
+    private void addYieldOutcome(final Operation operation, final boolean success, final FieldEncoder encoder) {
+        addOperation(operation, encoder);
+        if (success) {
+            addOutcome(OUTCOME_IS_SUCCESS, encoder);
         }
-        return jsonResult;
     }
 
-    private void addOperation(final Operation operation, final Collection<NameAndValue> msgParams) {
-        msgParams.add(nameAndValue("operation", operation.getName()));
+    /**
+     * add the fields which follow the starting parameters of a yield.
+     * @param yield the yield, or null for the start of the operation
+     */
+    private void addYieldFields(final Yield yield, final FieldEncoder encoder) {
+        if (yield != null) {
+            addYield(yield, encoder);
+            addDuration(yield.getDurationNanos(), encoder);
+            addSkipped(yield.getSkipped(), encoder);
+            addIntermediates(yield.getIntermediates(), encoder);
+        }
     }
 
-    private void addOperationParameters(final Operation operation, final Collection<NameAndValue> msgParams) {
-        addParametersAsNamedValues(msgParams, operation.getParameters());
+    /**
+     * add the fields which precede the starting parameters of a failure.
+     */
+    private void addFailureOutcome(final Operation operation, final Failure failure, final FieldEncoder encoder) {
+        addOperation(operation, encoder);
+        addOutcome(OUTCOME_IS_FAILURE, encoder);
+        addFailureMessage(failure, encoder);
     }
 
-    private void addOutcome(String outcome, final Collection<NameAndValue> msgParams) {
-        msgParams.add(nameAndValue("outcome", outcome));
+    /**
+     * add the fields which follow the starting parameters of a failure.
+     */
+    private void addFailureFields(final Failure failure, final FieldEncoder encoder) {
+        addFailureDetails(failure, encoder);
+        addDuration(failure.getDurationNanos(), encoder);
+        addSuppressed(failure.getSuppressed(), encoder);
     }
 
-    private void addYield(Yield yield, final Collection<NameAndValue> msgParams) {
-        addParametersAsNamedValues(msgParams, yield.getParameters());
+    private LineEncoder acquire(final Operation operation) {
+        return LineEncoder.acquire(operation.isJsonLayout(), operation.getLineLength().expected());
     }
 
-    private void addParametersAsNamedValues(final Collection<NameAndValue> msgParams, Map<String, Object> parameters) {
-        for (String name : parameters.keySet()) {
-            msgParams.add(nameAndValue(name, parameters.get(name)));
+    /**
+     * @param start as returned by {@link LoggingStatistics#start()} before the line was encoded
+     */
+    private String finish(final Operation operation, final LineEncoder encoder, final Level logLevel, final long millis,
+                          final long start) {
+        if (operation.isJsonLayout()) {
+            addLogLevalAndTime(encoder, logLevel, millis);
         }
+        final String line = encoder.finish();
+        LoggingStatistics.encoded(start, operation.isJsonLayout(), line.length());
+        return line;
     }
 
-    private void addFailureMessage(Failure failure, final Collection<NameAndValue> msgParams) {
-        msgParams.add(nameAndValue("errorMessage", failure.getFailureMessage()));
+    /**
+     * size the operation's next lines by a line just built. The dispatcher's thread does not, so that it never changes
+     * an operation which the caller may still be logging.
+     * @return the line
+     */
+    String learn(final Operation operation, final String line) {
+        operation.getLineLength().learn(line.length());
+        return line;
     }
 
-    private void addFailureDetails(Failure failure, final Collection<NameAndValue> msgParams) {
-        addParametersAsNamedValues(msgParams, failure.getParameters());
+    /**
+     * encode the starting parameters, if the line needs them, on the caller's thread, so that the dispatcher's thread
+     * only reads the operation's cached encoding, and any lazy starting parameter is computed by the caller.
+     * @return false if they failed to serialize, so that the caller logs the line, and reports the failure, itself
+     */
+    private boolean encodedBeforePublishing(final Operation operation, final boolean withParameters) {
+        try {
+            return !withParameters || encodedParameters(operation) != null;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
 
-        if (failure.didThrow()) {
-            msgParams.add(nameAndValue("exception", failure.getThrown().toString()));
+    /**
+     * the starting parameters never change once the operation has started, so are encoded once, on its first line,
+     * and copied into each line after.
+     * @return the starting parameters, encoded for {@link LineEncoder#fields(String)}.
+     */
+    private String encodedParameters(final Operation operation) {
+        String encoded = operation.getEncodedParameters();
+        if (encoded == null) {
+            final LineEncoder encoder = LineEncoder.acquire(operation.isJsonLayout());
+            try {
+                addParametersAsNamedValues(encoder, operation.getParameters());
+                encoded = encoder.fragment();
+            } finally {
+                encoder.release();
+            }
+            operation.setEncodedParameters(encoded);
         }
+        return encoded;
     }
 
-    private void addLogLevalAndTime(final Collection<NameAndValue> msgParams, String logLevel) {
-        msgParams.add(nameAndValue(LOG_LEVEL, logLevel));
-        msgParams.add(nameAndValue(TIME, java.time.ZonedDateTime.now(ZoneOffset.UTC).format(DATE_TIME_FORMATTER)));
+    private String failedToSerialize(final UncheckedIOException e) {
+        logger.info("Failed to serialize the object to JSON, error={}", e.getCause().getLocalizedMessage());
+        return "";
     }
 
-    static class NameAndValue {
-        private String name;
-        private Object value;
+    private void addOperation(final Operation operation, final FieldEncoder encoder) {
+        encoder.field("operation", operation.getName());
+    }
 
-        static NameAndValue nameAndValue(String name, Object value) {
-            return new NameAndValue(name, value);
+    private void addOutcome(String outcome, final FieldEncoder encoder) {
+        encoder.field("outcome", outcome);
+    }
+
+    private void addYield(Yield yield, final FieldEncoder encoder) {
+        addParametersAsNamedValues(encoder, yield.getParameters());
+    }
+
+    private void addParametersAsNamedValues(final FieldEncoder encoder, KeyValues parameters) {
+        for (int i = 0; i < parameters.size(); i++) {
+            switch (parameters.type(i)) {
+                case KeyValues.LONG:
+                    encoder.field(parameters.key(i), parameters.longValue(i));
+                    break;
+                case KeyValues.DOUBLE:
+                    encoder.field(parameters.key(i), parameters.doubleValue(i));
+                    break;
+                case KeyValues.BOOLEAN:
+                    encoder.field(parameters.key(i), parameters.booleanValue(i));
+                    break;
+                default:
+                    encoder.field(parameters.key(i), LazyValue.resolve(parameters.value(i)));
+                    break;
+            }
         }
-        
-        private NameAndValue(String name, Object value) {
-            this.name = name;
-            this.value = value;
+    }
+
+    private void addFailureMessage(Failure failure, final FieldEncoder encoder) {
+        encoder.field("errorMessage", failure.getFailureMessage());
+    }
+
+    private void addFailureDetails(Failure failure, final FieldEncoder encoder) {
+        addParametersAsNamedValues(encoder, failure.getParameters());
+
+        if (failure.didThrow()) {
+            encoder.field("exception", failure.getThrown().toString());
         }
-        
-        public String toString() {
-            if (value instanceof Integer || value instanceof Long) {
-                return String.format("%s=%d", name, value);
-            } else {
-                return String.format("%s=%s", name, new ToStringWrapper(value).toString());
-            }
+        if (failure.getStackFingerprint() != null) {
+            encoder.field(STACK_FINGERPRINT, failure.getStackFingerprint());
+        }
+        if (failure.getCauses() != null) {
+            encoder.field(CAUSES, failure.getCauses());
         }
+    }
 
-        public String getName() {
-            return name;
+    private void addDuration(final long durationNanos, final FieldEncoder encoder) {
+        if (durationNanos >= 0) {
+            encoder.field(DURATION, TimeUnit.NANOSECONDS.toMillis(durationNanos));
         }
+    }
 
-        public Object getValue() {
-            return value;
+    private void addSkipped(final long skipped, final FieldEncoder encoder) {
+        if (skipped >= 0) {
+            encoder.field(SKIPPED, skipped);
         }
-        
     }
-    
+
+    private void addIntermediates(final long intermediates, final FieldEncoder encoder) {
+        if (intermediates >= 0) {
+            encoder.field(INTERMEDIATES, intermediates);
+        }
+    }
+
+    private void addSuppressed(final long suppressed, final FieldEncoder encoder) {
+        if (suppressed >= 0) {
+            encoder.field(SUPPRESSED, suppressed);
+        }
+    }
+
+    private void addLogLevalAndTime(final LineEncoder encoder, Level logLevel, long millis) {
+        encoder.field(LOG_LEVEL, logLevel.name());
+        encoder.field(TIME, LogClock.render(millis));
+    }
 }
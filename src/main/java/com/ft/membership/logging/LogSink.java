@@ -0,0 +1,20 @@
+package com.ft.membership.logging;
+
+import org.slf4j.event.Level;
+
+/**
+ * A destination for formatted lines in place of slf4j; see {@link LogSinks}.
+ *
+ * <p>Levels are still checked against the operation's slf4j logger, but the line is written by the sink rather than
+ * handed to the logger. Implementations must be thread-safe.</p>
+ */
+public interface LogSink {
+
+    /**
+     * @param level the level, already known to be enabled
+     * @param loggerName name of the logger the line would otherwise have been handed to
+     * @param line the formatted line: in the JSON layout, a complete object ending with a line separator
+     * @param thrown a throwable to log with the line, or null
+     */
+    void write(Level level, String loggerName, String line, Throwable thrown);
+}
@@ -0,0 +1,41 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+/**
+ * Where formatted lines are written: to slf4j by default, or to an installed {@link LogSink}, such as a
+ * {@link FileLogSink}:
+ *
+ * <pre>
+ *     LogSinks.install(FileLogSink.to(Paths.get("/var/log/app/operations.log")).open());
+ * </pre>
+ */
+public final class LogSinks {
+
+    private static volatile LogSink sink;
+
+    private LogSinks() {
+    }
+
+    /**
+     * write every line to a sink, rather than to slf4j.
+     * @param sink the sink, replacing any previously installed
+     */
+    public static void install(final LogSink sink) {
+        LogSinks.sink = checkNotNull(sink, "require sink");
+    }
+
+    /**
+     * write lines to slf4j again; the previously installed sink is not closed.
+     */
+    public static void uninstall() {
+        sink = null;
+    }
+
+    /**
+     * @return the installed sink, or null if lines are written to slf4j.
+     */
+    static LogSink sink() {
+        return sink;
+    }
+}
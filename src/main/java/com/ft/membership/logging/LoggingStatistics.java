@@ -0,0 +1,356 @@
+package com.ft.membership.logging;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.event.Level;
+
+/**
+ * Measurement of the library's own cost: time spent encoding lines and handing them to slf4j (or to a
+ * {@link LogSink} or the {@link OperationJournal}), characters encoded per layout, lines written per level, and lines
+ * skipped by sampling, suppressed as repeated failures, or dropped by asynchronous logging or the journal.
+ *
+ * <pre>
+ *     LoggingStatistics.enable();
+ *     LoggingStatistics.registerMBean();
+ * </pre>
+ *
+ * <p>Totals are kept in striped {@link LongAdder}s, so recording does not contend between threads; the cost is two
+ * reads of {@link System#nanoTime()} for each line encoded, and two for each line written. When disabled, the cost is a
+ * single read of a volatile field. The adders are never reset, as a reset racing an increment may lose it; a reset
+ * instead records the totals it took, and later totals are counted from those. A line rendered by the logging backend, with
+ * {@link Operation.OperationBuilder#deferredRendering()}, is encoded within the time it is written.</p>
+ */
+public final class LoggingStatistics {
+
+    public static final String OBJECT_NAME = "com.ft.membership.logging:type=LoggingStatistics";
+
+    private static final Level[] LEVELS = Level.values();
+
+    private static final Total ENCODED_LINES = new Total();
+    private static final Total ENCODING_NANOS = new Total();
+    private static final Total WRITTEN_LINES = new Total();
+    private static final Total WRITE_NANOS = new Total();
+    private static final Total KEY_VALUE_CHARACTERS = new Total();
+    private static final Total JSON_CHARACTERS = new Total();
+    private static final Total[] LINES_BY_LEVEL = new Total[LEVELS.length];
+    private static final Total SKIPPED_LINES = new Total();
+    private static final Total SUPPRESSED_FAILURES = new Total();
+    private static final Total DROPPED_LINES = new Total();
+
+    static {
+        for (int i = 0; i < LINES_BY_LEVEL.length; i++) {
+            LINES_BY_LEVEL[i] = new Total();
+        }
+    }
+
+    private static volatile boolean enabled;
+
+    private LoggingStatistics() {
+    }
+
+    /**
+     * start recording.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * stop recording; the totals so far are kept.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the totals recorded so far.
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(false);
+    }
+
+    /**
+     * take the totals, and start counting afresh.
+     * @return the totals recorded since the last reset.
+     */
+    public static Snapshot snapshotAndReset() {
+        return new Snapshot(true);
+    }
+
+    /**
+     * register a {@link LoggingStatisticsMXBean} with the platform MBean server, as {@value #OBJECT_NAME}, unless one
+     * is already registered.
+     * @throws IllegalStateException if it cannot be registered
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered already
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * unregister the {@link LoggingStatisticsMXBean}, if it is registered.
+     */
+    public static void unregisterMBean() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * @return the time to measure from, or zero if statistics are disabled.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param start as returned by {@link #start()} before the line was encoded
+     */
+    static void encoded(final long start, final boolean jsonLayout, final int length) {
+        if (start != 0) {
+            ENCODING_NANOS.add(System.nanoTime() - start);
+            ENCODED_LINES.increment();
+            (jsonLayout ? JSON_CHARACTERS : KEY_VALUE_CHARACTERS).add(length);
+        }
+    }
+
+    /**
+     * @param start as returned by {@link #start()} before the line was written
+     */
+    static void written(final Level level, final long start) {
+        if (start != 0) {
+            WRITE_NANOS.add(System.nanoTime() - start);
+            WRITTEN_LINES.increment();
+            LINES_BY_LEVEL[level.ordinal()].increment();
+        }
+    }
+
+    static void skipped() {
+        if (enabled) {
+            SKIPPED_LINES.increment();
+        }
+    }
+
+    static void suppressed() {
+        if (enabled) {
+            SUPPRESSED_FAILURES.increment();
+        }
+    }
+
+    static void dropped() {
+        if (enabled) {
+            DROPPED_LINES.increment();
+        }
+    }
+
+    private static long sum(final Total total, final boolean reset) {
+        return reset ? total.sumThenReset() : total.sum();
+    }
+
+    /**
+     * a total which is never reset, counted from the value it had when last taken with {@link #sumThenReset()}.
+     */
+    private static final class Total {
+        private final LongAdder adder = new LongAdder();
+        private volatile long resetTo;
+
+        void add(final long value) {
+            adder.add(value);
+        }
+
+        void increment() {
+            adder.increment();
+        }
+
+        long sum() {
+            return adder.sum() - resetTo;
+        }
+
+        synchronized long sumThenReset() {
+            final long sum = adder.sum();
+            final long since = sum - resetTo;
+            resetTo = sum;
+            return since;
+        }
+    }
+
+    /**
+     * the totals, as they were when the snapshot was taken.
+     */
+    public static final class Snapshot {
+        private final long encodedLines;
+        private final long encodingNanos;
+        private final long writtenLines;
+        private final long writeNanos;
+        private final long keyValueCharacters;
+        private final long jsonCharacters;
+        private final long[] linesByLevel = new long[LEVELS.length];
+        private final long skippedLines;
+        private final long suppressedFailures;
+        private final long droppedLines;
+
+        private Snapshot(final boolean reset) {
+            encodedLines = sum(ENCODED_LINES, reset);
+            encodingNanos = sum(ENCODING_NANOS, reset);
+            writtenLines = sum(WRITTEN_LINES, reset);
+            writeNanos = sum(WRITE_NANOS, reset);
+            keyValueCharacters = sum(KEY_VALUE_CHARACTERS, reset);
+            jsonCharacters = sum(JSON_CHARACTERS, reset);
+            for (int i = 0; i < linesByLevel.length; i++) {
+                linesByLevel[i] = sum(LINES_BY_LEVEL[i], reset);
+            }
+            skippedLines = sum(SKIPPED_LINES, reset);
+            suppressedFailures = sum(SUPPRESSED_FAILURES, reset);
+            droppedLines = sum(DROPPED_LINES, reset);
+        }
+
+        public long getEncodedLines() {
+            return encodedLines;
+        }
+
+        public long getEncodingNanos() {
+            return encodingNanos;
+        }
+
+        public long getWrittenLines() {
+            return writtenLines;
+        }
+
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        public long getKeyValueCharacters() {
+            return keyValueCharacters;
+        }
+
+        public long getJsonCharacters() {
+            return jsonCharacters;
+        }
+
+        /**
+         * @param level a level
+         * @return the number of lines written at that level.
+         */
+        public long getLines(final Level level) {
+            return linesByLevel[level.ordinal()];
+        }
+
+        public long getSkippedLines() {
+            return skippedLines;
+        }
+
+        public long getSuppressedFailures() {
+            return suppressedFailures;
+        }
+
+        public long getDroppedLines() {
+            return droppedLines;
+        }
+    }
+
+    /**
+     * the live totals, for JMX.
+     */
+    private static final class Bean implements LoggingStatisticsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public long getEncodedLines() {
+            return ENCODED_LINES.sum();
+        }
+
+        @Override
+        public long getEncodingNanos() {
+            return ENCODING_NANOS.sum();
+        }
+
+        @Override
+        public long getWrittenLines() {
+            return WRITTEN_LINES.sum();
+        }
+
+        @Override
+        public long getWriteNanos() {
+            return WRITE_NANOS.sum();
+        }
+
+        @Override
+        public long getKeyValueCharacters() {
+            return KEY_VALUE_CHARACTERS.sum();
+        }
+
+        @Override
+        public long getJsonCharacters() {
+            return JSON_CHARACTERS.sum();
+        }
+
+        @Override
+        public long getErrorLines() {
+            return LINES_BY_LEVEL[Level.ERROR.ordinal()].sum();
+        }
+
+        @Override
+        public long getWarnLines() {
+            return LINES_BY_LEVEL[Level.WARN.ordinal()].sum();
+        }
+
+        @Override
+        public long getInfoLines() {
+            return LINES_BY_LEVEL[Level.INFO.ordinal()].sum();
+        }
+
+        @Override
+        public long getDebugLines() {
+            return LINES_BY_LEVEL[Level.DEBUG.ordinal()].sum();
+        }
+
+        @Override
+        public long getTraceLines() {
+            return LINES_BY_LEVEL[Level.TRACE.ordinal()].sum();
+        }
+
+        @Override
+        public long getSkippedLines() {
+            return SKIPPED_LINES.sum();
+        }
+
+        @Override
+        public long getSuppressedFailures() {
+            return SUPPRESSED_FAILURES.sum();
+        }
+
+        @Override
+        public long getDroppedLines() {
+            return DROPPED_LINES.sum();
+        }
+
+        @Override
+        public void reset() {
+            snapshotAndReset();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ft.membership.logging;
+
+/**
+ * The cost of logging, as registered by {@link LoggingStatistics#registerMBean()}; each attribute is a total since
+ * statistics were last reset.
+ */
+public interface LoggingStatisticsMXBean {
+
+    boolean isEnabled();
+
+    long getEncodedLines();
+
+    long getEncodingNanos();
+
+    long getWrittenLines();
+
+    long getWriteNanos();
+
+    long getKeyValueCharacters();
+
+    long getJsonCharacters();
+
+    long getErrorLines();
+
+    long getWarnLines();
+
+    long getInfoLines();
+
+    long getDebugLines();
+
+    long getTraceLines();
+
+    long getSkippedLines();
+
+    long getSuppressedFailures();
+
+    long getDroppedLines();
+
+    /**
+     * start counting afresh.
+     */
+    void reset();
+}
@@ -0,0 +1,41 @@
+package com.ft.membership.logging;
+
+/**
+ * An intermediate yield returned by {@link Operation#logIntermediate()} when the operation's logger has every level
+ * disabled, so that logging it through that logger does nothing. Its key-values are still kept, in case it is logged
+ * through an alternative logger instead.
+ *
+ * <p>Each thread re-uses one such yield, once it has been logged, so that the usual case allocates nothing.</p>
+ */
+final class NoOpIntermediateYield extends IntermediateYield {
+
+  private static final ThreadLocal<NoOpIntermediateYield> YIELDS =
+      ThreadLocal.withInitial(NoOpIntermediateYield::new);
+
+  private boolean inUse;
+
+  private NoOpIntermediateYield() {
+    super(null);
+  }
+
+  /**
+   * @return this thread's intermediate yield, or a fresh one if this thread's has not yet been logged.
+   */
+  static NoOpIntermediateYield acquire(final Operation operation) {
+    NoOpIntermediateYield yield = YIELDS.get();
+    if (yield.inUse) {
+      // held by another operation, perhaps never to be logged; so not kept by this thread any more
+      yield = new NoOpIntermediateYield();
+      YIELDS.set(yield);
+    }
+    yield.inUse = true;
+    yield.reuse(operation);
+    return yield;
+  }
+
+  @Override
+  void recycle() {
+    release(false);
+    inUse = false;
+  }
+}
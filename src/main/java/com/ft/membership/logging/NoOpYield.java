@@ -0,0 +1,40 @@
+package com.ft.membership.logging;
+
+/**
+ * A yield returned by {@link Operation#wasSuccessful()} when the operation's logger has <tt>INFO</tt> and
+ * <tt>DEBUG</tt> disabled, so that logging it through that logger only terminates the operation. Its key-values are
+ * still kept, in case it is logged through an alternative logger which has those levels enabled.
+ *
+ * <p>Each thread re-uses one such yield, once it has been logged, so that the usual case allocates nothing.</p>
+ */
+final class NoOpYield extends Yield {
+
+    private static final ThreadLocal<NoOpYield> YIELDS = ThreadLocal.withInitial(NoOpYield::new);
+
+    private boolean inUse;
+
+    private NoOpYield() {
+        super(null);
+    }
+
+    /**
+     * @return this thread's yield, or a fresh one if this thread's has not yet been logged.
+     */
+    static NoOpYield acquire(final Operation operation) {
+        NoOpYield yield = YIELDS.get();
+        if (yield.inUse) {
+            // held by another operation, perhaps never to be logged; so not kept by this thread any more
+            yield = new NoOpYield();
+            YIELDS.set(yield);
+        }
+        yield.inUse = true;
+        yield.reuse(operation);
+        return yield;
+    }
+
+    @Override
+    void recycle() {
+        release(false);
+        inUse = false;
+    }
+}
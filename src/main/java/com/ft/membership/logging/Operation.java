@@ -4,6 +4,7 @@ import static com.ft.membership.logging.Preconditions.checkNotNull;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * An Operation is a logging context with starting parameters, which either succeeds or fails, supporting additional
@@ -54,11 +55,24 @@ public class Operation implements AutoCloseable {
 
     private final String operationName;
     private final boolean layout;
+    private final boolean async;
+    private final boolean deferredRendering;
+    private final boolean timed;
+    private final long startNanos;
+    private final SamplingPolicy sampling;
+    private final LineLength lineLength;
+    private final boolean yieldEnabled;
+    private Boolean intermediateEnabled;
+    // encoded on first use; racing threads encode the same string
+    private String encodedParameters;
     private Object actorOrLogger;
+    private LogFormatter formatter;
 
     private boolean terminated;
+    private LeakDetection.Tracker leakTracker;
+    private IntermediateTrail intermediateTrail;
 
-    private Map<String, Object> parameters;
+    private final KeyValues parameters;
 
     /**
      * create an Operation, ready for decoration with parameters.
@@ -74,25 +88,48 @@ public class Operation implements AutoCloseable {
      */
     @Deprecated
     public Operation(final String operationName, final Object actorOrLogger, final Map<String, Object> parameters) {
-        this(operationName, actorOrLogger, parameters, false);
+        this(operationName, actorOrLogger, KeyValues.of(parameters), false, false, false, false);
+        this.leakTracker = LeakDetection.track(this);
     }
 
-    private Operation(final String operationName, final Object actorOrLogger, final Map<String, Object> parameters, final boolean layout) {
+    private Operation(final String operationName, final Object actorOrLogger, final KeyValues parameters, final boolean layout, final boolean async,
+                      final boolean deferredRendering, final boolean timed) {
         this.operationName = operationName;
         this.actorOrLogger = actorOrLogger;
         this.parameters = parameters;
         this.layout = layout;
+        this.async = async || AsyncLogging.isAllOperations();
+        this.deferredRendering = deferredRendering;
+        this.timed = timed;
+        this.startNanos = timed ? System.nanoTime() : 0;
+        this.sampling = Sampling.policyFor(operationName);
+        this.lineLength = LineLength.forOperation(operationName);
+        this.formatter = actorOrLogger == null ? null : LogFormatter.forActorOrLogger(actorOrLogger);
+        // the logger's levels are resolved once, for the life of the operation
+        this.yieldEnabled = formatter == null || formatter.isYieldEnabled();
     }
 
     public static class OperationBuilder extends Parameters {
 
         private final String operationName;
         private boolean layout;
-
+        private boolean async;
+        private boolean deferredRendering;
+        private boolean timed;
+        private int intermediateCapacity;
+        private boolean countIntermediates;
         OperationBuilder(final String operationName){
             checkNotNull(operationName, "require operationName");
             this.operationName = operationName;
         }
+
+        /**
+         * @param parameters starting parameters already collected, which may be frozen.
+         */
+        OperationBuilder(final String operationName, final KeyValues parameters) {
+            super(parameters);
+            this.operationName = operationName;
+        }
         
         /**
          * add a starting parameter.
@@ -115,11 +152,244 @@ public class Operation implements AutoCloseable {
             return this;
         }
 
+        /**
+         * add a starting parameter, computed only when the operation first logs it.
+         * @param key a log key string
+         * @param value computes the value, only if a line carrying it is logged
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final Supplier<?> value) {
+            putLazily(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, computed only when the operation first logs it.
+         * @param key a log key
+         * @param value computes the value, only if a line carrying it is logged
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final Supplier<?> value) {
+            putLazily(key.getKey(), value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key string
+         * @param value a long value
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final long value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key
+         * @param value a long value
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final long value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key string
+         * @param value a double value
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final double value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key
+         * @param value a double value
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final double value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key string
+         * @param value a boolean value
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final boolean value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter, without boxing it.
+         * @param key a log key
+         * @param value a boolean value
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final boolean value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key string
+         * @param value a char value, rendered as text rather than as its code point
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final char value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key string
+         * @param value a float value, rendered as its shortest decimal rather than widened to a double
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final float value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key string
+         * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final short value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key string
+         * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long
+         * @return Operation
+         */
+        public OperationBuilder with(final String key, final byte value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key
+         * @param value a char value, rendered as text rather than as its code point
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final char value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key
+         * @param value a float value, rendered as its shortest decimal rather than widened to a double
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final float value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key
+         * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final short value) {
+            put(key, value);
+            return this;
+        }
+
+        /**
+         * add a starting parameter.
+         * @param key a log key
+         * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long
+         * @return Operation
+         */
+        public OperationBuilder with(final Key key, final byte value) {
+            put(key, value);
+            return this;
+        }
+
         public OperationBuilder jsonLayout() {
             this.layout = true;
             return this;
         }
 
+        /**
+         * log this operation asynchronously; see {@link AsyncLogging}.
+         * @return Operation
+         */
+        public OperationBuilder async() {
+            this.async = true;
+            return this;
+        }
+
+        /**
+         * pass each line to slf4j as a message argument which is only rendered if the logging backend writes it,
+         * e.g. <tt>logger.info("{}", message)</tt>, rather than as a pre-formatted message.
+         * <p>NB parameters and yields are rendered as they are when the backend writes the line.</p>
+         * @return Operation
+         */
+        public OperationBuilder deferredRendering() {
+            this.deferredRendering = true;
+            return this;
+        }
+
+        /**
+         * time the operation from when it is started or initiated: a terminating {@link Yield} or {@link Failure} logs
+         * the elapsed time as <tt>durationMs</tt>, and records it in {@link OperationMetrics}.
+         * @return Operation
+         */
+        public OperationBuilder timed() {
+            this.timed = true;
+            return this;
+        }
+
+        /**
+         * hold back intermediate lines, of any level, until the operation terminates: on failure, they are logged
+         * before the failure line, and on success they are dropped.
+         * @param capacity the number of most recent intermediate lines to hold
+         * @return Operation
+         */
+        public OperationBuilder bufferIntermediates(final int capacity) {
+            return bufferIntermediates(capacity, false);
+        }
+
+        /**
+         * hold back intermediate lines, of any level, until the operation terminates: on failure, they are logged
+         * before the failure line, and on success they are dropped.
+         * @param capacity the number of most recent intermediate lines to hold
+         * @param countOnSuccess whether the success line carries the number of lines dropped, as
+         *                       <tt>intermediates</tt>
+         * @return Operation
+         */
+        public OperationBuilder bufferIntermediates(final int capacity, final boolean countOnSuccess) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("require positive capacity");
+            }
+            this.intermediateCapacity = capacity;
+            this.countIntermediates = countOnSuccess;
+            return this;
+        }
+
         /**
          * add starting parameters from entries in a map.
          * @param keyValues a map of parameter key-values
@@ -139,8 +409,8 @@ public class Operation implements AutoCloseable {
          * @return Operation
          */
         public Operation started(final Object actorOrLogger) {
-            final Operation operation = new Operation(operationName, actorOrLogger, getParameters(), layout);
-            new LogFormatter(actorOrLogger).logStart(operation);
+            final Operation operation = build(actorOrLogger);
+            operation.getFormatter().logStart(operation);
             return operation;
         }
 
@@ -153,24 +423,40 @@ public class Operation implements AutoCloseable {
          * @return Operation
          */
         public Operation initiate(final Object actorOrLogger) {
-            return new Operation(operationName, actorOrLogger, getParameters(), layout);
+            return build(actorOrLogger);
+        }
+
+        private Operation build(final Object actorOrLogger) {
+            final Operation operation = new Operation(operationName, actorOrLogger, getParameters().snapshot(), layout, async, deferredRendering, timed);
+            operation.leakTracker = LeakDetection.track(operation);
+            if (intermediateCapacity > 0) {
+                operation.intermediateTrail = new IntermediateTrail(intermediateCapacity, countIntermediates);
+            }
+            return operation;
         }
     }
 
     /**
      * mark the operation as successful, and prepare to log.
+     * <p>If the operation's logger had <tt>INFO</tt> and <tt>DEBUG</tt> disabled when it started, the Yield is one
+     * re-used by this thread, which logs only through an alternative logger.</p>
+     * <p>With {@link Recycling} enabled, the Yield may be a reused one, and must not be touched once logged.</p>
      * @return a Yield to be decorated and logged.
      */
     public Yield wasSuccessful() {
-        return new Yield(this);
+        if (!yieldEnabled && !deferredRendering) {
+            return NoOpYield.acquire(this);
+        }
+        return Recycling.yield(this);
     }
 
     /**
      * mark the operation as a failure, and prepare to log.
+     * <p>With {@link Recycling} enabled, the Failure may be a reused one, and must not be touched once logged.</p>
      * @return a Failure to be decorated and logged.
      */
     public Failure wasFailure() {
-        return new Failure(this);
+        return Recycling.failure(this);
     }
 
     /**
@@ -194,27 +480,121 @@ public class Operation implements AutoCloseable {
      *     ...
      *     INFO operation="launch" outcome="success"
      * </pre>
+     * <p>If the operation's logger has every level disabled, the IntermediateYield is one re-used by this thread, which
+     * logs only through an alternative logger, unless the operation {@link OperationBuilder#bufferIntermediates
+     * buffers} intermediate lines.</p>
      */
     public IntermediateYield logIntermediate() {
-        return new IntermediateYield(this);
+        if (!yieldEnabled && intermediateTrail == null) {
+            if (intermediateEnabled == null) {
+                intermediateEnabled = formatter.isIntermediateEnabled();
+            }
+            if (!intermediateEnabled && !deferredRendering) {
+                return NoOpIntermediateYield.acquire(this);
+            }
+        }
+        return Recycling.intermediateYield(this);
     }
     
-    void terminated() {
+    /**
+     * @param success whether terminated by a yield, rather than a failure
+     * @return the time since the operation started in nanoseconds, if it is timed; otherwise -1.
+     */
+    long terminated(final boolean success) {
         this.terminated = true;
+        if (leakTracker != null) {
+            leakTracker.close();
+            leakTracker = null;
+        }
+        if (!timed) {
+            return -1;
+        }
+        final long durationNanos = System.nanoTime() - startNanos;
+        OperationMetrics.record(operationName, durationNanos, success);
+        return durationNanos;
+    }
+
+    /**
+     * @return an untracked operation standing in for one which was collected without being terminated, through which
+     *         to report it.
+     */
+    static Operation leaked(final String operationName, final KeyValues parameters, final boolean layout,
+                            final LogFormatter formatter) {
+        final Operation operation = new Operation(operationName, null, parameters, layout, false, false, false);
+        operation.formatter = formatter;
+        return operation;
     }
 
     String getName() {
         return operationName;
     }
 
-    Map<String, Object> getParameters() {
+    /**
+     * @return the tracker reporting this operation if it is collected before it terminates; or null if it is not
+     *         tracked, or has terminated.
+     */
+    LeakDetection.Tracker getLeakTracker() {
+        return leakTracker;
+    }
+
+    /**
+     * @return the trail intermediate yields are held in until the operation terminates, or null if they are logged
+     *         at once.
+     */
+    IntermediateTrail getIntermediateTrail() {
+        return intermediateTrail;
+    }
+
+    /**
+     * @return the trail of intermediate yields, detached so that it is dealt with only once; or null.
+     */
+    IntermediateTrail takeIntermediateTrail() {
+        final IntermediateTrail trail = intermediateTrail;
+        intermediateTrail = null;
+        return trail;
+    }
+
+    /**
+     * @return the starting parameters, frozen when the operation was started.
+     */
+    KeyValues getParameters() {
         return parameters;
     }
 
+    /**
+     * @return the starting parameters encoded for this operation's layout, or null if not yet encoded.
+     */
+    String getEncodedParameters() {
+        return encodedParameters;
+    }
+
+    void setEncodedParameters(final String encodedParameters) {
+        this.encodedParameters = encodedParameters;
+    }
+
+    LineLength getLineLength() {
+        return lineLength;
+    }
+
     Object getActorOrLogger() {
         return actorOrLogger;
     }
 
+    LogFormatter getFormatter() {
+        if (formatter == null) {
+            formatter = LogFormatter.forActorOrLogger(actorOrLogger);
+        }
+        return formatter;
+    }
+
+    /**
+     * @param actorOrLogger a log context, possibly the one this operation was started with.
+     * @return the formatter for that log context, re-using this operation's own formatter where possible.
+     */
+    LogFormatter getFormatter(final Object actorOrLogger) {
+        return actorOrLogger == this.actorOrLogger ? getFormatter() : LogFormatter.forActorOrLogger(actorOrLogger);
+    }
+
     @Override
     public void close() {
         if (!terminated) {
@@ -228,4 +608,19 @@ public class Operation implements AutoCloseable {
         return layout;
     }
 
+    boolean isAsync() {
+        return async;
+    }
+
+    boolean isDeferredRendering() {
+        return deferredRendering;
+    }
+
+    /**
+     * @return the policy for sampling start, success and intermediate lines, or null if all are logged.
+     */
+    SamplingPolicy getSampling() {
+        return sampling;
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Recording of operation events in a compact binary journal, rather than as lines of text.
+ *
+ * <pre>
+ *     OperationJournal.enable(Paths.get("/var/log/app/journal"));
+ * </pre>
+ *
+ * <p>Every event which would have been logged, at a level enabled on its logger, is appended instead to a ring of
+ * pre-allocated, memory-mapped segment files, <tt>operations-N.journal</tt>. Operation names, keys and logger names are
+ * written once per segment and referred to by number after that; numbers are variable-length, and times are the
+ * difference from the previous event. When the ring is full, the oldest segment is overwritten.</p>
+ *
+ * <p>{@link JournalDecoder} renders the segments back into the lines which would have been logged.</p>
+ */
+public final class OperationJournal {
+
+    static final int DEFAULT_SEGMENTS = 4;
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final Object LOCK = new Object();
+    private static volatile Journal journal;
+
+    private OperationJournal() {
+    }
+
+    /**
+     * journal events in {@value #DEFAULT_SEGMENTS} segments of 16MiB.
+     * @param directory directory for the segment files, created if it does not exist
+     */
+    public static void enable(final Path directory) {
+        enable(directory, DEFAULT_SEGMENTS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * journal events, replacing (and closing) any previous journal; a journal already in the directory is continued
+     * after its most recent segment.
+     * @param directory directory for the segment files, created if it does not exist
+     * @param segments number of segment files in the ring
+     * @param segmentSize size in bytes of each segment file
+     * @throws UncheckedIOException if the segment files cannot be opened
+     */
+    public static void enable(final Path directory, final int segments, final int segmentSize) {
+        checkNotNull(directory, "require directory");
+        if (segments < 2 || segmentSize < Journal.MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("require at least 2 segments of at least " + Journal.MIN_SEGMENT_SIZE + " bytes");
+        }
+        synchronized (LOCK) {
+            disable();
+            try {
+                journal = new Journal(directory, segments, segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * log lines of text again, and close the journal.
+     */
+    public static void disable() {
+        final Journal stopping;
+        synchronized (LOCK) {
+            stopping = journal;
+            journal = null;
+        }
+        if (stopping != null) {
+            stopping.close();
+        }
+    }
+
+    /**
+     * @return the journal, or null if events are logged as lines.
+     */
+    static Journal journal() {
+        return journal;
+    }
+}
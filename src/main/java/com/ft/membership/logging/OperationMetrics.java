@@ -0,0 +1,151 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms and success/failure counts of timed operations, keyed by operation name.
+ *
+ * <p>Operations opt in with {@link Operation.OperationBuilder#timed()}; each is recorded when it is terminated by a
+ * {@link Yield} or {@link Failure}, whether or not the line is logged at the logger's level:</p>
+ *
+ * <pre>
+ *     for (OperationMetrics.Snapshot launches : OperationMetrics.snapshotAndReset().values()) {
+ *         report(launches.getOperationName(), launches.getCount(), launches.getValueAtPercentile(99.0));
+ *     }
+ * </pre>
+ */
+public final class OperationMetrics {
+
+    private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final LatencyHistogram EMPTY = new LatencyHistogram();
+
+    private OperationMetrics() {
+    }
+
+    /**
+     * @return a snapshot of each timed operation recorded so far, by operation name.
+     */
+    public static Map<String, Snapshot> snapshot() {
+        return snapshots(false);
+    }
+
+    /**
+     * take a snapshot of each timed operation, and start counting afresh.
+     * @return a snapshot of each timed operation recorded since the last reset, by operation name.
+     */
+    public static Map<String, Snapshot> snapshotAndReset() {
+        return snapshots(true);
+    }
+
+    /**
+     * @param operationName the name of an operation
+     * @return a snapshot of the named operation, empty if none has been recorded.
+     */
+    public static Snapshot snapshot(final String operationName) {
+        checkNotNull(operationName, "require operationName");
+        final LatencyHistogram histogram = HISTOGRAMS.getOrDefault(operationName, EMPTY);
+        return histogram.snapshot(operationName, false);
+    }
+
+    static void record(final String operationName, final long nanos, final boolean success) {
+        LatencyHistogram histogram = HISTOGRAMS.get(operationName);
+        if (histogram == null) {
+            histogram = HISTOGRAMS.computeIfAbsent(operationName, name -> new LatencyHistogram());
+        }
+        histogram.record(nanos, success);
+    }
+
+    private static Map<String, Snapshot> snapshots(final boolean reset) {
+        final Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey(), reset));
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * the durations and outcomes of an operation, as they were when the snapshot was taken.
+     */
+    public static final class Snapshot {
+        private final String operationName;
+        private final long successCount;
+        private final long failureCount;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] counts;
+
+        Snapshot(final String operationName, final long successCount, final long failureCount, final long totalNanos,
+                 final long maxNanos, final long[] counts) {
+            this.operationName = operationName;
+            this.successCount = successCount;
+            this.failureCount = failureCount;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.counts = counts;
+        }
+
+        public String getOperationName() {
+            return operationName;
+        }
+
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public long getCount() {
+            return successCount + failureCount;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @param unit unit of the result
+         * @return the mean duration, or zero if none was recorded.
+         */
+        public double getMean(final TimeUnit unit) {
+            final long count = getCount();
+            return count == 0 ? 0 : (double) totalNanos / count / unit.toNanos(1);
+        }
+
+        /**
+         * @param percentile a percentile, between 0 and 100
+         * @return the duration in nanoseconds at or below which that percentage of durations fell, to within the
+         *         precision of the histogram; or zero if none was recorded.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("require percentile between 0 and 100");
+            }
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    final long highest = LatencyHistogram.highestValueIn(i);
+                    return maxNanos == 0 ? highest : Math.min(highest, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
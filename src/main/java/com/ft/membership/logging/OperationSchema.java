@@ -0,0 +1,63 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The name, layout and fixed keys of an operation declared with {@link FluentOperation}, checked once when the
+ * generated builder class is loaded rather than on every call.
+ *
+ * <p>Intended for code generated by {@link FluentOperationProcessor}.</p>
+ */
+public final class OperationSchema {
+
+    private final String operationName;
+    private final boolean jsonLayout;
+    private final boolean timed;
+    private final String[] keys;
+
+    private OperationSchema(final String operationName, final boolean jsonLayout, final boolean timed,
+                            final String[] keys) {
+        this.operationName = operationName;
+        this.jsonLayout = jsonLayout;
+        this.timed = timed;
+        this.keys = keys;
+    }
+
+    /**
+     * @param operationName name of the operation
+     * @param jsonLayout whether the operation logs in JSON
+     * @param timed whether the operation is timed
+     * @param keys the key of each slot, in the order they are logged
+     * @return the schema
+     */
+    public static OperationSchema of(final String operationName, final boolean jsonLayout, final boolean timed,
+                                     final String... keys) {
+        checkNotNull(operationName, "require operationName");
+        final Set<String> unique = new HashSet<>();
+        for (String key : keys) {
+            if (!unique.add(checkNotNull(key, "require key"))) {
+                throw new IllegalArgumentException("require unique keys, but " + key + " is repeated");
+            }
+        }
+        return new OperationSchema(operationName, jsonLayout, timed, keys.clone());
+    }
+
+    String getOperationName() {
+        return operationName;
+    }
+
+    boolean isJsonLayout() {
+        return jsonLayout;
+    }
+
+    boolean isTimed() {
+        return timed;
+    }
+
+    String[] getKeys() {
+        return keys;
+    }
+}
@@ -1,27 +1,162 @@
 package com.ft.membership.logging;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static com.ft.membership.logging.Preconditions.checkNotNull;
 
 class Parameters {
-    private Map<String, Object> params = new LinkedHashMap<>();
+    private final KeyValues params;
+    // whether taken from a Recycling pool, and so to be recycled once logged
+    private boolean pooled;
+    // whether retired by checked Recycling, so that any further use is an error
+    private boolean retired;
+
+    Parameters() {
+        this(new KeyValues());
+    }
+
+    /**
+     * @param params parameters already collected, such as by a {@link TypedOperationBuilder}.
+     */
+    Parameters(final KeyValues params) {
+        this.params = params;
+    }
 
     protected void put(String key, Object value) {
+        checkLive();
+        checkNotNull(key, "require key");
+        params.put(key, value);
+    }
+
+    protected void put(String key, long value) {
+        checkLive();
+        checkNotNull(key, "require key");
+        params.put(key, value);
+    }
+
+    protected void put(String key, double value) {
+        checkLive();
+        checkNotNull(key, "require key");
+        params.put(key, value);
+    }
+
+    protected void put(String key, boolean value) {
+        checkLive();
         checkNotNull(key, "require key");
         params.put(key, value);
     }
 
+    /**
+     * keep a char boxed, so that it renders as text, as it did before there were primitive overloads, rather than
+     * widening to its code point.
+     */
+    protected void put(String key, char value) {
+        put(key, (Object) value);
+    }
+
+    /**
+     * keep a float boxed, so that it renders as its shortest decimal, rather than widening to the nearest double.
+     */
+    protected void put(String key, float value) {
+        put(key, (Object) value);
+    }
+
+    /**
+     * keep a short or byte boxed, so that it renders quoted, as it did before there were primitive overloads, rather
+     * than widening to a long.
+     */
+    protected void put(String key, short value) {
+        put(key, (Object) value);
+    }
+
+    protected void put(String key, byte value) {
+        put(key, (Object) value);
+    }
+
+    /**
+     * @param supplier computes the value only if a line carrying it is logged; a null supplier is a null value.
+     */
+    protected void putLazily(final String key, final Supplier<?> supplier) {
+        put(key, supplier == null ? null : new LazyValue(supplier));
+    }
+
     protected void put(final Key key, final Object detail) {
         put(key.getKey(), detail);
     }
 
+    protected void put(final Key key, final long detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final double detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final boolean detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final char detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final float detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final short detail) {
+        put(key.getKey(), detail);
+    }
+
+    protected void put(final Key key, final byte detail) {
+        put(key.getKey(), detail);
+    }
+
     protected void putAll(final Map<String, Object> keyValues) {
+        checkLive();
+        params.putAll(keyValues);
+    }
+
+    protected void putAll(final KeyValues keyValues) {
         params.putAll(keyValues);
     }
 
-    protected Map<String, Object> getParameters() {
+    protected KeyValues getParameters() {
         return params;
     }
+
+    /**
+     * compute any lazy values now, on the calling thread.
+     */
+    void resolveLazyValues() {
+        params.resolveLazyValues();
+    }
+
+    /**
+     * @throws IllegalStateException if this has been logged and retired by checked {@link Recycling}.
+     */
+    protected void checkLive() {
+        if (retired) {
+            throw new IllegalStateException(Recycling.USED_AFTER_LOG);
+        }
+    }
+
+    void setPooled() {
+        this.pooled = true;
+    }
+
+    boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * clear the parameters of a pooled object once it has been logged.
+     * @param retire whether it is retired rather than reused, so that any further use is an error
+     */
+    void release(final boolean retire) {
+        params.clear();
+        this.pooled = false;
+        this.retired = retire;
+    }
 }
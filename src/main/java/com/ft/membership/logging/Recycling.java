@@ -0,0 +1,204 @@
+package com.ft.membership.logging;
+
+/**
+ * Recycling of the {@link Yield}, {@link IntermediateYield} and {@link Failure} objects returned by
+ * {@link Operation#wasSuccessful()}, {@link Operation#logIntermediate()} and {@link Operation#wasFailure()}, so that
+ * logging in a steady state allocates none of them.
+ *
+ * <pre>
+ *     Recycling.enable(16);
+ * </pre>
+ *
+ * <p>Each thread keeps a pool of up to <tt>poolSize</tt> objects of each kind. An object is reset and returned to the
+ * pool of the thread which logs it, as soon as it is logged, together with the storage of its key-values; the line
+ * encoders are already per-thread. Objects of an operation with {@link Operation.OperationBuilder#deferredRendering()
+ * deferred rendering} are not recycled, as the logging backend may render them later.</p>
+ *
+ * <p>NB a yield or failure must not be touched once logged: it may already be in use by another operation. In checked
+ * mode, a logged object is retired rather than reused, and any use of it throws {@link IllegalStateException}; this
+ * finds misuse in tests, at the cost of the allocation recycling saves.</p>
+ *
+ * <p>When disabled, the cost to each yield or failure is a single read of a volatile field.</p>
+ */
+public final class Recycling {
+
+    static final String USED_AFTER_LOG = "Programmer error: yield or failure used after it was logged and recycled.";
+
+    private static final ThreadLocal<Pool> POOLS = new ThreadLocal<>();
+
+    private static volatile Settings settings;
+
+    private Recycling() {
+    }
+
+    /**
+     * recycle yields and failures, replacing any previous configuration.
+     * @param poolSize the number of objects of each kind each thread keeps for reuse
+     */
+    public static void enable(final int poolSize) {
+        enable(poolSize, false);
+    }
+
+    /**
+     * recycle yields and failures, replacing any previous configuration.
+     * @param poolSize the number of objects of each kind each thread keeps for reuse
+     * @param checked whether to retire logged objects rather than reuse them, so that any use of one throws
+     *                {@link IllegalStateException}
+     */
+    public static void enable(final int poolSize, final boolean checked) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("require positive poolSize");
+        }
+        settings = new Settings(poolSize, checked);
+    }
+
+    /**
+     * allocate a new yield or failure each time; each thread drops its pool when it next logs a pooled one.
+     */
+    public static void disable() {
+        settings = null;
+    }
+
+    static Yield yield(final Operation operation) {
+        final Settings current = settings;
+        if (current == null || operation.isDeferredRendering()) {
+            return new Yield(operation);
+        }
+        final Pool pool = pool(current);
+        final Yield yield = pool == null ? null : pool.yields.poll();
+        return acquired(yield == null ? new Yield(operation) : yield.reuse(operation));
+    }
+
+    static IntermediateYield intermediateYield(final Operation operation) {
+        final Settings current = settings;
+        if (current == null || operation.isDeferredRendering()) {
+            return new IntermediateYield(operation);
+        }
+        final Pool pool = pool(current);
+        final IntermediateYield yield = pool == null ? null : pool.intermediateYields.poll();
+        return acquired(yield == null ? new IntermediateYield(operation) : yield.reuse(operation));
+    }
+
+    static Failure failure(final Operation operation) {
+        final Settings current = settings;
+        if (current == null || operation.isDeferredRendering()) {
+            return new Failure(operation);
+        }
+        final Pool pool = pool(current);
+        final Failure failure = pool == null ? null : pool.failures.poll();
+        return acquired(failure == null ? new Failure(operation) : failure.reuse(operation));
+    }
+
+    /**
+     * reset a yield once logged, and return it to this thread's pool if it came from one.
+     */
+    static void recycle(final Yield yield) {
+        if (!yield.isPooled()) {
+            return;
+        }
+        final Settings current = settings;
+        yield.release(current != null && current.checked);
+        final Pool pool = pool(current);
+        if (pool != null) {
+            if (yield instanceof IntermediateYield) {
+                pool.intermediateYields.offer((IntermediateYield) yield);
+            } else {
+                pool.yields.offer(yield);
+            }
+        }
+    }
+
+    /**
+     * reset a failure once logged, and return it to this thread's pool if it came from one.
+     */
+    static void recycle(final Failure failure) {
+        if (!failure.isPooled()) {
+            return;
+        }
+        final Settings current = settings;
+        failure.release(current != null && current.checked);
+        final Pool pool = pool(current);
+        if (pool != null) {
+            pool.failures.offer(failure);
+        }
+    }
+
+    private static <T extends Parameters> T acquired(final T terminal) {
+        terminal.setPooled();
+        return terminal;
+    }
+
+    /**
+     * @return this thread's pool for the current settings, or null if recycling is disabled or checked.
+     */
+    private static Pool pool(final Settings current) {
+        if (current == null) {
+            POOLS.remove();
+            return null;
+        }
+        if (current.checked) {
+            return null;
+        }
+        Pool pool = POOLS.get();
+        if (pool == null || pool.settings != current) {
+            pool = new Pool(current);
+            POOLS.set(pool);
+        }
+        return pool;
+    }
+
+    private static final class Settings {
+        private final int poolSize;
+        private final boolean checked;
+
+        private Settings(final int poolSize, final boolean checked) {
+            this.poolSize = poolSize;
+            this.checked = checked;
+        }
+    }
+
+    /**
+     * a thread's reusable objects.
+     */
+    private static final class Pool {
+        private final Settings settings;
+        private final Stack<Yield> yields;
+        private final Stack<IntermediateYield> intermediateYields;
+        private final Stack<Failure> failures;
+
+        private Pool(final Settings settings) {
+            this.settings = settings;
+            this.yields = new Stack<>(settings.poolSize);
+            this.intermediateYields = new Stack<>(settings.poolSize);
+            this.failures = new Stack<>(settings.poolSize);
+        }
+    }
+
+    /**
+     * a bounded stack, which drops what it has no room for.
+     */
+    private static final class Stack<T> {
+        private final Object[] elements;
+        private int size;
+
+        private Stack(final int capacity) {
+            this.elements = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        T poll() {
+            if (size == 0) {
+                return null;
+            }
+            final T element = (T) elements[--size];
+            elements[size] = null;
+            return element;
+        }
+
+        void offer(final T element) {
+            if (size < elements.length) {
+                elements[size++] = element;
+            }
+        }
+    }
+}
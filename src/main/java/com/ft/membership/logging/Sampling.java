@@ -0,0 +1,63 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sampling of the start, success and intermediate lines of busy operations, by operation name:
+ *
+ * <pre>
+ *     Sampling.sample("lookup", SamplingPolicy.fixedRate(0.01));
+ *     Sampling.sample("render", SamplingPolicy.rateLimit(100, 1, TimeUnit.SECONDS));
+ *     Sampling.sample("poll", SamplingPolicy.firstPerInterval(10, 1, TimeUnit.MINUTES));
+ * </pre>
+ *
+ * <p>Failures are always logged. A line which is logged carries <tt>skipped=N</tt>, the number of lines of its kind
+ * (start, success or intermediate) its policy skipped since it last logged one. The decision is made before a line is
+ * formatted, so skipped lines cost little.</p>
+ *
+ * <p>An operation's policy is looked up when it is started or initiated, so a change applies to operations started
+ * afterwards.</p>
+ */
+public final class Sampling {
+
+    private static final ConcurrentMap<String, SamplingPolicy> POLICIES = new ConcurrentHashMap<>();
+
+    private Sampling() {
+    }
+
+    /**
+     * sample lines of the named operation, replacing any previous policy for it.
+     * @param operationName name of the operation
+     * @param policy a policy, not shared with other operation names
+     */
+    public static void sample(final String operationName, final SamplingPolicy policy) {
+        checkNotNull(operationName, "require operationName");
+        checkNotNull(policy, "require policy");
+        POLICIES.put(operationName, policy);
+    }
+
+    /**
+     * log every line of the named operation.
+     * @param operationName name of the operation
+     */
+    public static void clear(final String operationName) {
+        POLICIES.remove(operationName);
+    }
+
+    /**
+     * log every line of every operation.
+     */
+    public static void clearAll() {
+        POLICIES.clear();
+    }
+
+    /**
+     * @return the policy for an operation, or null if all its lines are to be logged.
+     */
+    static SamplingPolicy policyFor(final String operationName) {
+        return POLICIES.isEmpty() ? null : POLICIES.get(operationName);
+    }
+}
@@ -0,0 +1,175 @@
+package com.ft.membership.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which of an operation's start, success and intermediate lines are logged; see {@link Sampling}.
+ *
+ * <p>Decisions are lock-free. A policy counts the lines it skips of each kind, start, success or intermediate, and the
+ * next line of that kind it logs carries that count as <tt>skipped=N</tt>, so that the totals of each kind can be
+ * reconstructed from the log.</p>
+ */
+public abstract class SamplingPolicy {
+
+    static final long SKIP = -1;
+
+    static final int START = 0;
+    static final int SUCCESS = 1;
+    static final int INTERMEDIATE = 2;
+
+    private final Skipped[] skipped = {new Skipped(), new Skipped(), new Skipped()};
+
+    SamplingPolicy() {
+    }
+
+    /**
+     * log a fraction of lines, chosen at random.
+     * @param rate the fraction of lines to log, between 0 and 1
+     * @return a SamplingPolicy
+     */
+    public static SamplingPolicy fixedRate(final double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("require rate between 0 and 1");
+        }
+        return new FixedRate(rate);
+    }
+
+    /**
+     * log lines at up to a steady rate, allowing a burst of up to <tt>permits</tt> lines after a quiet spell.
+     * @param permits number of lines which may be logged per period
+     * @param period the period
+     * @param unit unit of period
+     * @return a SamplingPolicy
+     */
+    public static SamplingPolicy rateLimit(final long permits, final long period, final TimeUnit unit) {
+        if (permits < 1 || period < 1) {
+            throw new IllegalArgumentException("require positive permits and period");
+        }
+        return new RateLimit(permits, unit.toNanos(period));
+    }
+
+    /**
+     * log the first lines of each interval, and skip the rest.
+     * @param count number of lines to log per interval, at most about a million
+     * @param interval the interval
+     * @param unit unit of interval
+     * @return a SamplingPolicy
+     */
+    public static SamplingPolicy firstPerInterval(final int count, final long interval, final TimeUnit unit) {
+        if (count < 1 || count > FirstPerInterval.MAX_COUNT || interval < 1) {
+            throw new IllegalArgumentException("require count between 1 and " + FirstPerInterval.MAX_COUNT
+                    + ", and positive interval");
+        }
+        return new FirstPerInterval(count, unit.toNanos(interval));
+    }
+
+    /**
+     * @param kind {@link #START}, {@link #SUCCESS} or {@link #INTERMEDIATE}
+     * @return the number of lines of the kind skipped since the last one logged, or {@link #SKIP} if this line is to be
+     *         skipped.
+     */
+    final long sample(final int kind) {
+        final Skipped count = skipped[kind];
+        if (accept()) {
+            return count.report();
+        }
+        count.total.increment();
+        return SKIP;
+    }
+
+    abstract boolean accept();
+
+    /**
+     * the lines of one kind skipped: never reset, so that no skip is lost; each line logged reports the growth since
+     * the last one reported.
+     */
+    private static final class Skipped {
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong reported = new AtomicLong();
+
+        long report() {
+            final long sum = total.sum();
+            return Math.max(0, sum - reported.getAndAccumulate(sum, Math::max));
+        }
+    }
+
+    private static final class FixedRate extends SamplingPolicy {
+        private final double rate;
+
+        FixedRate(final double rate) {
+            this.rate = rate;
+        }
+
+        @Override
+        boolean accept() {
+            return rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate;
+        }
+    }
+
+    /**
+     * a token bucket, kept as the theoretical time at which the bucket will next be full.
+     */
+    private static final class RateLimit extends SamplingPolicy {
+        private final long nanosPerPermit;
+        private final long burstNanos;
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+        RateLimit(final long permits, final long periodNanos) {
+            this.nanosPerPermit = Math.max(1, periodNanos / permits);
+            this.burstNanos = nanosPerPermit * permits;
+        }
+
+        @Override
+        boolean accept() {
+            final long now = System.nanoTime();
+            while (true) {
+                final long current = fullAt.get();
+                final long next = (current - now < 0 ? now : current) + nanosPerPermit;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * the current interval and the number of lines logged in it, packed into one word so that both change together.
+     */
+    private static final class FirstPerInterval extends SamplingPolicy {
+        private static final int COUNT_BITS = 20;
+        static final int MAX_COUNT = (1 << COUNT_BITS) - 2;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final int count;
+        private final long intervalNanos;
+        private final long origin = System.nanoTime();
+        private final AtomicLong state = new AtomicLong();
+
+        FirstPerInterval(final int count, final long intervalNanos) {
+            this.count = count;
+            this.intervalNanos = intervalNanos;
+        }
+
+        @Override
+        boolean accept() {
+            final long interval = (System.nanoTime() - origin) / intervalNanos;
+            while (true) {
+                final long current = state.get();
+                final long currentInterval = current >>> COUNT_BITS;
+                final long logged = currentInterval == interval ? current & COUNT_MASK : 0;
+                if (currentInterval > interval || logged >= count) {
+                    return false;
+                }
+                if (state.compareAndSet(current, interval << COUNT_BITS | logged + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.ft.membership.logging;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Logging of each distinct stack-trace once, and of a reference to it after that.
+ *
+ * <pre>
+ *     StackTraceFingerprints.enable();
+ * </pre>
+ *
+ * <p>A failure logged at <tt>ERROR</tt> with an exception carries <tt>stackFingerprint</tt>, a hash of the classes,
+ * methods and line numbers of the stack frames of the exception and its causes. The first time a fingerprint is seen,
+ * the stack-trace is logged as usual; after that, the stack-trace is left out and the line carries <tt>causes</tt>, a
+ * summary of the cause chain, instead.</p>
+ *
+ * <p>A fingerprint is computed once per exception class and throw site, the top frame of its stack, and re-used for
+ * every later exception of that class thrown from there, without hashing the rest of its frames and causes. An
+ * exception reaching the same throw site by another path therefore shares the first one's fingerprint, and is logged
+ * with <tt>causes</tt> rather than its own stack-trace.</p>
+ *
+ * <p>Seen fingerprints, and the fingerprints of throw sites, are kept in least-recently-used tables of bounded size,
+ * so a trace evicted from them is logged in full again.</p>
+ */
+public final class StackTraceFingerprints {
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String CAUSE_SEPARATOR = " > ";
+
+    private static volatile Seen seen;
+
+    private StackTraceFingerprints() {
+    }
+
+    /**
+     * log each distinct stack-trace once, remembering the {@value #DEFAULT_CAPACITY} most recently seen.
+     */
+    public static void enable() {
+        enable(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * log each distinct stack-trace once, replacing any previous configuration.
+     * @param capacity number of most recently seen fingerprints to remember
+     */
+    public static void enable(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("require positive capacity");
+        }
+        seen = new Seen(capacity);
+    }
+
+    /**
+     * log every stack-trace in full.
+     */
+    public static void disable() {
+        seen = null;
+    }
+
+    /**
+     * @return the seen fingerprints, or null if fingerprinting is disabled.
+     */
+    static Seen seen() {
+        return seen;
+    }
+
+    /**
+     * @return a stable hash of the stack frames of a throwable and its causes, as 16 hex digits.
+     */
+    static String fingerprint(final Throwable thrown) {
+        long hash = FNV_OFFSET_BASIS;
+        final Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable t = thrown; t != null && visited.add(t); t = t.getCause()) {
+            hash = mix(hash, t.getClass().getName().hashCode());
+            for (StackTraceElement frame : t.getStackTrace()) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+        }
+        final String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * @return the causes of a throwable, outermost first, or null if it has none.
+     */
+    static String causes(final Throwable thrown) {
+        final Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(thrown);
+        StringBuilder causes = null;
+        for (Throwable t = thrown.getCause(); t != null && visited.add(t); t = t.getCause()) {
+            if (causes == null) {
+                causes = new StringBuilder();
+            } else {
+                causes.append(CAUSE_SEPARATOR);
+            }
+            causes.append(t);
+        }
+        return causes == null ? null : causes.toString();
+    }
+
+    private static long mix(final long hash, final int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * a least-recently-used set of fingerprints, and of the fingerprints of throw sites.
+     */
+    static final class Seen {
+        private final Map<String, Boolean> fingerprints;
+        private final Map<ThrowSite, String> bySite;
+
+        Seen(final int capacity) {
+            this.fingerprints = new LeastRecentlyUsed<>(capacity);
+            this.bySite = new LeastRecentlyUsed<>(capacity);
+        }
+
+        /**
+         * @return the fingerprint of a throwable: the one already computed for its class and throw site, if any.
+         */
+        String fingerprint(final Throwable thrown) {
+            final StackTraceElement[] frames = thrown.getStackTrace();
+            if (frames.length == 0) {
+                return StackTraceFingerprints.fingerprint(thrown);
+            }
+            final ThrowSite site = new ThrowSite(thrown.getClass(), frames[0]);
+            String fingerprint;
+            synchronized (this) {
+                fingerprint = bySite.get(site);
+            }
+            if (fingerprint == null) {
+                fingerprint = StackTraceFingerprints.fingerprint(thrown);
+                synchronized (this) {
+                    bySite.put(site, fingerprint);
+                }
+            }
+            return fingerprint;
+        }
+
+        /**
+         * @return true if the fingerprint had not been seen, or had been forgotten.
+         */
+        synchronized boolean firstSighting(final String fingerprint) {
+            return fingerprints.put(fingerprint, Boolean.TRUE) == null;
+        }
+    }
+
+    /**
+     * the class of an exception and the frame it was thrown from.
+     */
+    private static final class ThrowSite {
+        private final Class<?> type;
+        private final StackTraceElement frame;
+
+        ThrowSite(final Class<?> type, final StackTraceElement frame) {
+            this.type = type;
+            this.frame = frame;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ThrowSite)) {
+                return false;
+            }
+            final ThrowSite other = (ThrowSite) o;
+            return type == other.type && frame.equals(other.frame);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + frame.hashCode();
+        }
+    }
+
+    /**
+     * an access-ordered map which evicts its eldest entry beyond its capacity.
+     */
+    private static final class LeastRecentlyUsed<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        LeastRecentlyUsed(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
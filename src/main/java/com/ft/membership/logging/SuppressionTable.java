@@ -0,0 +1,182 @@
+package com.ft.membership.logging;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.Util;
+
+/**
+ * A bounded table of recent failures, keyed by operation name, exception class and message, which counts the repeats
+ * of each within a window rather than logging them.
+ *
+ * <p>The table is direct-mapped: each key has a single slot, and a failure whose slot holds a different key evicts it.
+ * A background thread logs a <tt>suppressed=N</tt> summary for each window which has closed with repeats; so does
+ * eviction, and {@link #stop()}. An evicted entry is closed, taking its count in the same atomic step, so that a repeat
+ * racing with the eviction is counted against the entry which replaced it rather than lost.</p>
+ */
+final class SuppressionTable {
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final long windowNanos;
+    private final Thread sweeper;
+    private volatile boolean running = true;
+
+    SuppressionTable(final long windowNanos, final int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.windowNanos = windowNanos;
+        this.sweeper = new Thread(this::sweep, "fluent-logging-suppression");
+        this.sweeper.setDaemon(true);
+        this.sweeper.start();
+    }
+
+    /**
+     * @return true if the failure repeats one logged within the window, and has been counted rather than logged.
+     */
+    boolean suppress(final LogFormatter formatter, final Level level, final Operation operation, final Failure failure) {
+        final String operationName = operation.getName();
+        final Class<?> thrownClass = failure.didThrow() ? failure.getThrown().getClass() : null;
+        final String message = failure.getFailureMessage();
+        final int index = index(operationName, thrownClass, message);
+        final long now = System.nanoTime();
+
+        Entry replacement = null;
+        while (true) {
+            final Entry entry = entries.get(index);
+            if (entry != null && entry.matches(operationName, thrownClass, message)
+                    && now - entry.startNanos < windowNanos) {
+                if (entry.count()) {
+                    return true;
+                }
+                // evicted since it was read; look again
+                continue;
+            }
+            if (replacement == null) {
+                replacement = new Entry(operationName, thrownClass, message, now, formatter, level, operation,
+                        failure.snapshot());
+            }
+            if (entries.compareAndSet(index, entry, replacement)) {
+                if (entry != null) {
+                    entry.close();
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * stop the background thread, and log a summary for every window with repeats.
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(sweeper);
+        for (int i = 0; i < entries.length(); i++) {
+            final Entry entry = entries.getAndSet(i, null);
+            if (entry != null) {
+                entry.close();
+            }
+        }
+    }
+
+    private void sweep() {
+        while (running) {
+            LockSupport.parkNanos(this, Math.max(windowNanos / 2, 1));
+            final long now = System.nanoTime();
+            for (int i = 0; i < entries.length() && running; i++) {
+                final Entry entry = entries.get(i);
+                if (entry != null && now - entry.startNanos >= windowNanos) {
+                    entry.summarise();
+                }
+            }
+        }
+    }
+
+    private int index(final String operationName, final Class<?> thrownClass, final String message) {
+        int hash = operationName.hashCode();
+        hash = 31 * hash + Objects.hashCode(thrownClass);
+        hash = 31 * hash + Objects.hashCode(message);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * the first failure of a window, and the number of its repeats not yet summarised; or {@link #CLOSED} once it has
+     * left the table.
+     */
+    private static final class Entry {
+        private static final long CLOSED = Long.MIN_VALUE;
+
+        private final String operationName;
+        private final Class<?> thrownClass;
+        private final String message;
+        private final long startNanos;
+        private final LogFormatter formatter;
+        private final Level level;
+        private final Operation operation;
+        private final Failure failure;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        Entry(final String operationName, final Class<?> thrownClass, final String message, final long startNanos,
+              final LogFormatter formatter, final Level level, final Operation operation, final Failure failure) {
+            this.operationName = operationName;
+            this.thrownClass = thrownClass;
+            this.message = message;
+            this.startNanos = startNanos;
+            this.formatter = formatter;
+            this.level = level;
+            this.operation = operation;
+            this.failure = failure;
+        }
+
+        boolean matches(final String operationName, final Class<?> thrownClass, final String message) {
+            return this.thrownClass == thrownClass && this.operationName.equals(operationName)
+                    && Objects.equals(this.message, message);
+        }
+
+        /**
+         * @return true if the repeat was counted; false if the entry has been closed.
+         */
+        boolean count() {
+            // still negative however many repeats race with closing
+            return suppressed.incrementAndGet() > 0;
+        }
+
+        /**
+         * log a summary of the repeats so far, and count afresh; unless the entry has been closed.
+         */
+        void summarise() {
+            long count;
+            do {
+                count = suppressed.get();
+                if (count <= 0) {
+                    return;
+                }
+            } while (!suppressed.compareAndSet(count, 0));
+            log(count);
+        }
+
+        /**
+         * log a summary of the repeats not yet summarised, once the entry has left the table.
+         */
+        void close() {
+            final long count = suppressed.getAndSet(CLOSED);
+            if (count > 0) {
+                log(count);
+            }
+        }
+
+        private void log(final long count) {
+            final Failure summary = failure.snapshot();
+            summary.setDurationNanos(-1);
+            summary.setSuppressed(count);
+            try {
+                formatter.logSummary(level, operation, summary);
+            } catch (RuntimeException e) {
+                Util.report("Failed to log suppressed failures", e);
+            }
+        }
+    }
+}
@@ -15,8 +15,9 @@ public class ToStringWrapper {
 
     @Override
     public String toString() {
-        if(value == null) return "null";
-        return "\"" + value.toString().replace("\"","\\\"") + "\"";
+        final StringBuilder sb = new StringBuilder();
+        KeyValueEncoder.appendQuoted(sb, value);
+        return sb.toString();
     }
 
     @Override
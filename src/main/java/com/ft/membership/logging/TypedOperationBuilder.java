@@ -0,0 +1,81 @@
+package com.ft.membership.logging;
+
+import java.util.Arrays;
+
+/**
+ * The base of builders generated for operations declared with {@link FluentOperation}: starting parameters are held in
+ * fixed slots, numbered in the order of the {@link OperationSchema}'s keys, with primitives unboxed.
+ *
+ * <p>Starting the operation gathers the slots set into its parameters directly, without looking up any key.</p>
+ */
+public abstract class TypedOperationBuilder {
+
+    private final OperationSchema schema;
+    private final byte[] types;
+    private final Object[] values;
+    private final long[] primitives;
+
+    protected TypedOperationBuilder(final OperationSchema schema) {
+        this.schema = schema;
+        final int slots = schema.getKeys().length;
+        this.types = new byte[slots];
+        this.values = new Object[slots];
+        this.primitives = new long[slots];
+        Arrays.fill(types, KeyValues.ABSENT);
+    }
+
+    protected final void set(final int slot, final Object value) {
+        types[slot] = KeyValues.OBJECT;
+        values[slot] = value;
+    }
+
+    protected final void set(final int slot, final long value) {
+        types[slot] = KeyValues.LONG;
+        values[slot] = null;
+        primitives[slot] = value;
+    }
+
+    protected final void set(final int slot, final double value) {
+        types[slot] = KeyValues.DOUBLE;
+        values[slot] = null;
+        primitives[slot] = Double.doubleToRawLongBits(value);
+    }
+
+    protected final void set(final int slot, final boolean value) {
+        types[slot] = KeyValues.BOOLEAN;
+        values[slot] = null;
+        primitives[slot] = value ? 1 : 0;
+    }
+
+    /**
+     * mark the start of the operation, logging starting parameters at <tt>INFO</tt> level; see
+     * {@link Operation.OperationBuilder#started(Object)}.
+     * @param actorOrLogger object for logging context
+     * @return Operation
+     */
+    public Operation started(final Object actorOrLogger) {
+        return builder().started(actorOrLogger);
+    }
+
+    /**
+     * mark the start of the operation, but do not log starting parameters; see
+     * {@link Operation.OperationBuilder#initiate(Object)}.
+     * @param actorOrLogger object for logging context
+     * @return Operation
+     */
+    public Operation initiate(final Object actorOrLogger) {
+        return builder().initiate(actorOrLogger);
+    }
+
+    private Operation.OperationBuilder builder() {
+        final Operation.OperationBuilder builder = new Operation.OperationBuilder(schema.getOperationName(),
+                KeyValues.ofSlots(schema.getKeys(), types, values, primitives));
+        if (schema.isJsonLayout()) {
+            builder.jsonLayout();
+        }
+        if (schema.isTimed()) {
+            builder.timed();
+        }
+        return builder;
+    }
+}
@@ -1,9 +1,13 @@
 package com.ft.membership.logging;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class Yield extends Parameters implements LoggingTerminal {
-    private final Operation operation;
+    private Operation operation;
+    private long durationNanos = -1;
+    private long skipped = -1;
+    private long intermediates = -1;
 
     Yield(final Operation operation) {
         this.operation = operation;
@@ -31,6 +35,182 @@ public class Yield extends Parameters implements LoggingTerminal {
         return this;
     }
 
+    /**
+     * add a key-value to the yield, computed only when the yield is logged.
+     * @param key a key.
+     * @param value computes the value, only if a line carrying it is logged.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final Supplier<?> value) {
+        putLazily(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, computed only when the yield is logged.
+     * @param key a key.
+     * @param value computes the value, only if a line carrying it is logged.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final Supplier<?> value) {
+        putLazily(key.getKey(), value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a long value.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final long value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a long value.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final long value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a double value.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final double value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a double value.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final double value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a boolean value.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final boolean value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield, without boxing the value.
+     * @param key a key.
+     * @param value a boolean value.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final boolean value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a char value, rendered as text rather than as its code point.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final char value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a float value, rendered as its shortest decimal rather than widened to a double.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final float value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final short value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long.
+     * @return the Yield
+     */
+    public Yield yielding(final String key, final byte value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a char value, rendered as text rather than as its code point.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final char value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a float value, rendered as its shortest decimal rather than widened to a double.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final float value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a short value, rendered quoted, as a boxed Short, rather than widened to a long.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final short value) {
+        put(key, value);
+        return this;
+    }
+
+    /**
+     * add a key-value to the yield.
+     * @param key a key.
+     * @param value a byte value, rendered quoted, as a boxed Byte, rather than widened to a long.
+     * @return the Yield
+     */
+    public Yield yielding(final Key key, final byte value) {
+        put(key, value);
+        return this;
+    }
+
     /**
      * add all key-values from a map to the yield.
      * @param keyValues a map of key-values.
@@ -53,7 +233,9 @@ public class Yield extends Parameters implements LoggingTerminal {
      * @param actorOrLogger an alternative logger or object for log context
      */
     public void log(final Object actorOrLogger) {
+        checkLive();
         logInfo(actorOrLogger);
+        recycle();
     }
 
     /**
@@ -61,10 +243,84 @@ public class Yield extends Parameters implements LoggingTerminal {
      * @param actorOrLogger logger or object for log context
      */
     public void logDebug(Object actorOrLogger) {
-        new LogFormatter(actorOrLogger).logDebug(operation, this, true);
+        checkLive();
+        operation.getFormatter(actorOrLogger).logDebug(operation, this, true);
+        recycle();
     }
     
+    /**
+     * @return a copy of this yield, unaffected by later changes to its parameters.
+     */
+    Yield snapshot() {
+        final Yield snapshot = new Yield(operation);
+        snapshot.durationNanos = durationNanos;
+        snapshot.skipped = skipped;
+        snapshot.intermediates = intermediates;
+        snapshot.putAll(getParameters());
+        return snapshot;
+    }
+
+    /**
+     * reset this yield once logged, for re-use if it came from a {@link Recycling} pool.
+     */
+    void recycle() {
+        Recycling.recycle(this);
+    }
+
+    /**
+     * @return this yield, taken from a pool for another operation.
+     */
+    Yield reuse(final Operation operation) {
+        this.operation = operation;
+        return this;
+    }
+
+    @Override
+    void release(final boolean retire) {
+        super.release(retire);
+        if (!retire) {
+            // a retired yield keeps its operation, so that misuse fails with IllegalStateException
+            operation = null;
+        }
+        durationNanos = -1;
+        skipped = -1;
+        intermediates = -1;
+    }
+
+    /**
+     * @param durationNanos the duration of the operation this yield terminates, or -1 if it is not timed.
+     */
+    void setDurationNanos(final long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @param skipped the number of lines skipped by sampling before this one, or -1 if the operation is not sampled.
+     */
+    void setSkipped(final long skipped) {
+        this.skipped = skipped;
+    }
+
+    long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @param intermediates the number of buffered intermediate lines dropped on success, or -1 if not counted.
+     */
+    void setIntermediates(final long intermediates) {
+        this.intermediates = intermediates;
+    }
+
+    long getIntermediates() {
+        return intermediates;
+    }
+
     private void logInfo(Object actorOrLogger) {
-        new LogFormatter(actorOrLogger).logInfo(operation, this, true);
+        operation.getFormatter(actorOrLogger).logInfo(operation, this, true);
     }
 }
@@ -0,0 +1,69 @@
+package com.ft.membership.logging;
+
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.slf4j.event.Level;
+
+/**
+ * Appends to a journal directly, blocking its next segment with a directory of the same name.
+ */
+public class JournalTest {
+
+    private static final String PADDING = String.format("%200s", "");
+
+    @Test
+    public void count_events_dropped_while_the_next_segment_fails_to_start_then_retry_it() throws Exception {
+
+        final Path directory = Files.createTempDirectory("journal");
+        final Path blocked = Files.createDirectory(Journal.segment(directory, 1));
+        final boolean statisticsEnabled = LoggingStatistics.isEnabled();
+        LoggingStatistics.enable();
+        final long droppedBefore = LoggingStatistics.snapshot().getDroppedLines();
+        final Journal journal = new Journal(directory, 2, Journal.MIN_SEGMENT_SIZE);
+        final long dropped;
+        try {
+            for (int i = 0; i < 10; i++) {
+                append(journal, i);
+            }
+            dropped = LoggingStatistics.snapshot().getDroppedLines() - droppedBefore;
+            assertTrue("dropped " + dropped, dropped > 0);
+
+            Files.delete(blocked);
+            append(journal, 10);
+        } finally {
+            journal.close();
+            if (!statisticsEnabled) {
+                LoggingStatistics.disable();
+            }
+        }
+
+        final StringBuilder decoded = new StringBuilder();
+        JournalDecoder.decode(directory, null, decoded);
+        final String[] lines = decoded.toString().split(System.lineSeparator());
+        // every event before the retry was either appended to the first segment or counted as dropped
+        assertEquals(10, lines.length - 1 + dropped);
+        assertThat(lines[lines.length - 1], endsWith(" i=10"));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    private static void append(final Journal journal, final int i) {
+        final JournalEncoder event = JournalEncoder.acquire(false);
+        try {
+            event.field("padding", PADDING).field("i", i);
+            journal.append(Level.INFO, "journal.test", event, null);
+        } finally {
+            event.release();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ft.membership.logging;
+
+import static com.ft.membership.logging.Operation.operation;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+/**
+ * Queues trackers on the reference queue directly, as the collector would, so that reports do not wait on it.
+ */
+public class LeakDetectionTest {
+
+    private Logger leakLogger;
+
+    @Before
+    public void setup() {
+        leakLogger = Mockito.mock(Logger.class);
+        Mockito.when(leakLogger.isErrorEnabled()).thenReturn(true);
+        LeakDetection.enable(1);
+    }
+
+    @After
+    public void tearDown() {
+        LeakDetection.disable();
+    }
+
+    @Test
+    public void report_operations_collected_without_being_terminated() throws Exception {
+
+        final Operation leaked = operation("leaked").with("a", 1).initiate(leakLogger);
+        leaked.getLeakTracker().enqueue();
+        LeakDetection.reportCollected();
+
+        verify(leakLogger).error(
+                eq("operation=\"leaked\" outcome=\"failure\" errorMessage=\"" + LeakDetection.LEAKED + "\" a=1 exception=\"java.lang.IllegalStateException: " + LeakDetection.LEAKED + "\""),
+                any(IllegalStateException.class)
+        );
+    }
+
+    @Test
+    public void not_report_operations_terminated_before_collection() throws Exception {
+
+        final Operation terminated = operation("terminated").initiate(leakLogger);
+        final LeakDetection.Tracker tracker = terminated.getLeakTracker();
+        terminated.wasFailure().withMessage("done").log();
+        assertNull(terminated.getLeakTracker());
+        tracker.enqueue();
+        LeakDetection.reportCollected();
+
+        verify(leakLogger).error("operation=\"terminated\" outcome=\"failure\" errorMessage=\"done\"");
+        verify(leakLogger, times(0)).error(any(String.class), any(IllegalStateException.class));
+    }
+}
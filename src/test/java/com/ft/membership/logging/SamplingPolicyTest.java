@@ -0,0 +1,37 @@
+package com.ft.membership.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import org.junit.Test;
+
+/**
+ * Drives a policy with scripted decisions, to see the count of skipped lines each logged line carries.
+ */
+public class SamplingPolicyTest {
+
+    @Test
+    public void count_skipped_lines_separately_for_each_kind() throws Exception {
+
+        final SamplingPolicy policy = scripted(false, false, false, true, true, true);
+
+        assertEquals(SamplingPolicy.SKIP, policy.sample(SamplingPolicy.START));
+        assertEquals(SamplingPolicy.SKIP, policy.sample(SamplingPolicy.START));
+        assertEquals(SamplingPolicy.SKIP, policy.sample(SamplingPolicy.SUCCESS));
+        assertEquals(1, policy.sample(SamplingPolicy.SUCCESS));
+        assertEquals(0, policy.sample(SamplingPolicy.INTERMEDIATE));
+        assertEquals(2, policy.sample(SamplingPolicy.START));
+    }
+
+    private static SamplingPolicy scripted(final Boolean... decisions) {
+        final Queue<Boolean> script = new ArrayDeque<>(Arrays.asList(decisions));
+        return new SamplingPolicy() {
+            @Override
+            boolean accept() {
+                return script.remove();
+            }
+        };
+    }
+}
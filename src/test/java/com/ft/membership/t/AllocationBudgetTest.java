@@ -0,0 +1,147 @@
+package com.ft.membership.t;
+
+import static com.ft.membership.logging.Operation.operation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ft.membership.logging.Recycling;
+import java.lang.management.ManagementFactory;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the garbage produced by the core logging paths: each asserts a ceiling on the bytes allocated per call,
+ * measured by the JVM for the calling thread once the path has been warmed up.
+ *
+ * <p>Ceilings are set at about 1.3 to 1.4 times what the paths allocate today, so that they fail on a regression well
+ * short of a doubling, while leaving some room for a change of JVM.</p>
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARM_UP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    private static final RuntimeException EXCEPTION = new RuntimeException("bang!");
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void initiate_and_succeed_with_disabled_logger() throws Exception {
+
+        final StandInLogger logger = new StandInLogger(false);
+
+        final long bytes = bytesPerCall(() -> operation("disabled")
+                .with("a", 1)
+                .initiate(logger)
+                .wasSuccessful()
+                .yielding("b", 2)
+                .log());
+
+        assertEquals(0, logger.getLines());
+        assertBudget(704, bytes);
+    }
+
+    @Test
+    public void log_success_in_text_layout_with_parameters() throws Exception {
+
+        final StandInLogger logger = new StandInLogger(true);
+
+        final long bytes = bytesPerCall(() -> operation("text")
+                .with("a", 1)
+                .with("b", "two")
+                .with("c", 3.5)
+                .with("d", true)
+                .initiate(logger)
+                .wasSuccessful()
+                .yielding("e", 5)
+                .log());
+
+        assertEquals(WARM_UP_CALLS + MEASURED_CALLS, logger.getLines());
+        assertBudget(1_472, bytes);
+    }
+
+    @Test
+    public void log_success_in_text_layout_with_recycling() throws Exception {
+
+        final StandInLogger logger = new StandInLogger(true);
+
+        Recycling.enable(4);
+        try {
+            final long bytes = bytesPerCall(() -> operation("recycled")
+                    .with("a", 1)
+                    .with("b", "two")
+                    .with("c", 3.5)
+                    .with("d", true)
+                    .initiate(logger)
+                    .wasSuccessful()
+                    .yielding("e", 5)
+                    .log());
+
+            assertEquals(WARM_UP_CALLS + MEASURED_CALLS, logger.getLines());
+            assertBudget(1_152, bytes);
+        } finally {
+            Recycling.disable();
+        }
+    }
+
+    @Test
+    public void log_success_in_json_layout_with_parameters() throws Exception {
+
+        final StandInLogger logger = new StandInLogger(true);
+
+        final long bytes = bytesPerCall(() -> operation("json").jsonLayout()
+                .with("a", 1)
+                .with("b", "two")
+                .with("c", 3.5)
+                .with("d", true)
+                .initiate(logger)
+                .wasSuccessful()
+                .yielding("e", 5)
+                .log());
+
+        assertEquals(WARM_UP_CALLS + MEASURED_CALLS, logger.getLines());
+        assertBudget(1_728, bytes);
+    }
+
+    @Test
+    public void log_failure_with_exception() throws Exception {
+
+        final StandInLogger logger = new StandInLogger(true);
+
+        final long bytes = bytesPerCall(() -> operation("failure")
+                .with("a", 1)
+                .initiate(logger)
+                .wasFailure()
+                .throwingException(EXCEPTION)
+                .withDetail("b", "two")
+                .log());
+
+        assertEquals(WARM_UP_CALLS + MEASURED_CALLS, logger.getLines());
+        assertBudget(1_856, bytes);
+    }
+
+    private long bytesPerCall(final Runnable call) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.run();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            call.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS;
+    }
+
+    private static void assertBudget(final long budget, final long bytes) {
+        assertTrue("allocated " + bytes + " bytes per call, over the budget of " + budget, bytes <= budget);
+    }
+}
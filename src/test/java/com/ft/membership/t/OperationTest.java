@@ -1,25 +1,71 @@
 package com.ft.membership.t;
 
 import static com.ft.membership.logging.Operation.operation;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ft.membership.logging.AsyncLogging;
+import com.ft.membership.logging.BatchOperation;
+import com.ft.membership.logging.Failure;
+import com.ft.membership.logging.FailureSuppression;
+import com.ft.membership.logging.FileLogSink;
+import com.ft.membership.logging.JournalDecoder;
 import com.ft.membership.logging.Key;
+import com.ft.membership.logging.LogClock;
+import com.ft.membership.logging.LogSinks;
+import com.ft.membership.logging.LoggingStatistics;
 import com.ft.membership.logging.Operation;
+import com.ft.membership.logging.OperationJournal;
+import com.ft.membership.logging.OperationMetrics;
+import com.ft.membership.logging.Recycling;
+import com.ft.membership.logging.Sampling;
+import com.ft.membership.logging.SamplingPolicy;
+import com.ft.membership.logging.StackTraceFingerprints;
+import com.ft.membership.logging.Yield;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.management.ObjectName;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.slf4j.Logger;
+import org.slf4j.event.Level;
 
 @RunWith(MockitoJUnitRunner.class)
 public class OperationTest {
@@ -40,7 +86,7 @@ public class OperationTest {
 
         operation("simple_success").started(mockLogger).wasSuccessful().log();
 
-        verify(mockLogger,times(2)).isInfoEnabled();
+        verify(mockLogger,times(3)).isInfoEnabled();
         verify(mockLogger).info("operation=\"simple_success\"");
         verify(mockLogger).info("operation=\"simple_success\" outcome=\"success\"");
         verifyNoMoreInteractions(mockLogger);
@@ -51,7 +97,46 @@ public class OperationTest {
 
     operation("simple_success").jsonLayout().started(mockLogger).wasSuccessful().log();
 
-    verify(mockLogger, times(2)).isInfoEnabled();
+    verify(mockLogger, times(3)).isInfoEnabled();
+  }
+
+  @Test
+  public void log_json_fields_in_order_with_native_types() throws Exception {
+
+    operation("json_success").jsonLayout()
+        .with("count", 3)
+        .with("flag", true)
+        .with("name", "say \"hi\"")
+        .initiate(mockLogger)
+        .wasSuccessful()
+        .yielding("ratio", 0.5)
+        .log();
+
+    final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    verify(mockLogger).info(message.capture());
+    assertThat(message.getValue(), startsWith(
+        "{\"operation\":\"json_success\",\"outcome\":\"success\",\"count\":3,\"flag\":true,"
+            + "\"name\":\"say \\\"hi\\\"\",\"ratio\":0.5,\"logLevel\":\"INFO\",\"time\":\""));
+    assertThat(message.getValue(), endsWith("\"}" + System.lineSeparator()));
+  }
+
+  @Test
+  public void log_json_time_from_installed_clock() throws Exception {
+
+    final Clock fixed = Clock.fixed(Instant.parse("2020-01-02T03:04:05.678Z"), ZoneOffset.UTC);
+    try {
+      for (Duration offset : Arrays.asList(Duration.ZERO, Duration.ZERO, Duration.ofMillis(321), Duration.ofSeconds(1))) {
+        LogClock.use(Clock.offset(fixed, offset));
+        operation("clocked").jsonLayout().initiate(mockLogger).wasSuccessful().log();
+      }
+    } finally {
+      LogClock.reset();
+    }
+
+    final String line = "{\"operation\":\"clocked\",\"outcome\":\"success\",\"logLevel\":\"INFO\",\"time\":";
+    verify(mockLogger, times(2)).info(line + "\"2020-01-02T03:04:05.678Z\"}" + System.lineSeparator());
+    verify(mockLogger).info(line + "\"2020-01-02T03:04:05.999Z\"}" + System.lineSeparator());
+    verify(mockLogger).info(line + "\"2020-01-02T03:04:06.678Z\"}" + System.lineSeparator());
   }
 
   @Test
@@ -59,7 +144,7 @@ public class OperationTest {
 
     operation("simple_result_operation").initiate(mockLogger).wasSuccessful().log();
 
-    verify(mockLogger, times(1)).isInfoEnabled();
+    verify(mockLogger, times(2)).isInfoEnabled();
     verify(mockLogger).info("operation=\"simple_result_operation\" outcome=\"success\"");
     verifyNoMoreInteractions(mockLogger);
   }
@@ -69,9 +154,22 @@ public class OperationTest {
 
     operation("simple_result_operation").jsonLayout().initiate(mockLogger).wasSuccessful().log();
 
-    verify(mockLogger, times(1)).isInfoEnabled();
+    verify(mockLogger, times(2)).isInfoEnabled();
   }
 
+    @Test
+    public void log_success_to_an_alternative_logger() throws Exception {
+
+        final Logger otherLogger = Mockito.mock(Logger.class);
+        Mockito.when(otherLogger.isInfoEnabled()).thenReturn(true);
+
+        operation("simple_success").initiate(mockLogger).wasSuccessful().log(otherLogger);
+
+        verify(otherLogger).info("operation=\"simple_success\" outcome=\"success\"");
+        verify(mockLogger).isInfoEnabled();
+        verifyNoMoreInteractions(mockLogger);
+    }
+
     @Test
     public void log_success_with_start_params() throws Exception {
 
@@ -97,6 +195,96 @@ public class OperationTest {
         );
     }
 
+    @Test
+    public void escape_double_quotes_in_values() throws Exception {
+
+        operation("escaping")
+                .with("quote", "say \"hi\"")
+                .with("count", 3L)
+                .initiate(mockLogger)
+                .wasSuccessful()
+                .yielding("json", "{\"a\":\"b\"}")
+                .log();
+
+        verify(mockLogger).info(
+                eq("operation=\"escaping\" outcome=\"success\" quote=\"say \\\"hi\\\"\" count=3 json=\"{\\\"a\\\":\\\"b\\\"}\"")
+        );
+    }
+
+    @Test
+    public void replace_repeated_keys_in_their_original_position() throws Exception {
+
+        operation("repeats").with("a", 1).with("b", 2).with("a", 3).initiate(mockLogger).wasSuccessful().log();
+
+        verify(mockLogger).info("operation=\"repeats\" outcome=\"success\" a=3 b=2");
+    }
+
+    @Test
+    public void repeat_json_key_of_starting_parameter_and_yield_with_yield_value_last() throws Exception {
+
+        operation("repeats").jsonLayout().with("a", 1).initiate(mockLogger).wasSuccessful().yielding("a", 2).log();
+
+        final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(mockLogger).info(message.capture());
+        assertThat(message.getValue(), startsWith("{\"operation\":\"repeats\",\"outcome\":\"success\",\"a\":1,\"a\":2,"));
+        assertEquals(2, new ObjectMapper().readTree(message.getValue()).get("a").asInt());
+    }
+
+    @Test
+    public void log_primitive_values_as_their_boxed_equivalents() throws Exception {
+
+        operation("primitives").with("count", 3L).with("ratio", 0.5).with("flag", true).with("count", "many")
+                .initiate(mockLogger)
+                .wasFailure()
+                .withDetail("retries", 2)
+                .log();
+
+        verify(mockLogger).error(
+                "operation=\"primitives\" outcome=\"failure\" errorMessage=null count=\"many\" ratio=\"0.5\" flag=\"true\" retries=2");
+    }
+
+    @Test
+    public void log_char_and_float_values_as_text_rather_than_widened() throws Exception {
+
+        final Operation operation = operation("narrow").with("grade", 'b').with("ratio", 0.1f).initiate(mockLogger);
+        operation.logIntermediate().yielding("grade", 'c').yielding("ratio", 0.2f).log();
+        operation.wasSuccessful().yielding(Key.UserId, 'd').yielding("ratio", 0.3f).log();
+        operation("narrow").initiate(mockLogger).wasFailure().withDetail("grade", 'e').withDetail("ratio", 0.4f).log();
+        operation("narrow").jsonLayout().with("grade", 'f').with("ratio", 0.5f).started(mockLogger);
+
+        verify(mockLogger).info("operation=\"narrow\" grade=\"b\" ratio=\"0.1\" grade=\"c\" ratio=\"0.2\"");
+        verify(mockLogger).info("operation=\"narrow\" outcome=\"success\" grade=\"b\" ratio=\"0.1\" userId=\"d\" ratio=\"0.3\"");
+        verify(mockLogger).error("operation=\"narrow\" outcome=\"failure\" errorMessage=null grade=\"e\" ratio=\"0.4\"");
+        verify(mockLogger).info(argThat(startsWith("{\"operation\":\"narrow\",\"grade\":\"f\",\"ratio\":0.5,")));
+    }
+
+    @Test
+    public void log_short_and_byte_values_boxed_rather_than_widened() throws Exception {
+
+        final short small = 3;
+        final byte tiny = 4;
+        final Operation operation = operation("narrow").with("small", small).with(Key.UserId, tiny).initiate(mockLogger);
+        operation.logIntermediate().yielding("small", small).yielding(Key.UserId, tiny).log();
+        operation.wasSuccessful().yielding("tiny", tiny).log();
+        operation("narrow").initiate(mockLogger).wasFailure().withDetail("small", small).withDetail("tiny", tiny).log();
+
+        verify(mockLogger).info("operation=\"narrow\" small=\"3\" userId=\"4\" small=\"3\" userId=\"4\"");
+        verify(mockLogger).info("operation=\"narrow\" outcome=\"success\" small=\"3\" userId=\"4\" tiny=\"4\"");
+        verify(mockLogger).error("operation=\"narrow\" outcome=\"failure\" errorMessage=null small=\"3\" tiny=\"4\"");
+    }
+
+    @Test
+    public void not_change_started_operation_when_builder_changes() throws Exception {
+
+        final Operation.OperationBuilder builder = operation("frozen").with("a", 1);
+        final Operation operation = builder.initiate(mockLogger);
+        builder.with("b", 2);
+
+        operation.wasSuccessful().log();
+
+        verify(mockLogger).info("operation=\"frozen\" outcome=\"success\" a=1");
+    }
+
     @Test
     public void log_success_with_key_yield() throws Exception {
 
@@ -143,6 +331,536 @@ public class OperationTest {
         );
     }
 
+    @Test
+    public void log_asynchronously_when_requested() throws Exception {
+
+        final Exception ex = new RuntimeException("bang!");
+        final Operation operation = operation("async").async().with("a", 5).started(mockLogger);
+        operation.logIntermediate().yielding("action", "wait").logDebug();
+        operation.wasFailure().throwingException(ex).log();
+
+        assertTrue(AsyncLogging.flush(5, TimeUnit.SECONDS));
+        verify(mockLogger).info("operation=\"async\" a=5");
+        verify(mockLogger).debug("operation=\"async\" a=5 action=\"wait\"");
+        verify(mockLogger).error(
+                eq("operation=\"async\" outcome=\"failure\" errorMessage=\"bang!\" a=5 exception=\"java.lang.RuntimeException: bang!\""),
+                eq(ex)
+        );
+    }
+
+    @Test
+    public void compute_lazy_values_of_async_lines_on_the_logging_thread() throws Exception {
+
+        final Thread caller = Thread.currentThread();
+        final Operation operation = operation("async_lazy").async()
+                .with("starter", () -> Thread.currentThread() == caller).started(mockLogger);
+        operation.wasSuccessful().yielding("yielder", () -> Thread.currentThread() == caller).log();
+
+        assertTrue(AsyncLogging.flush(5, TimeUnit.SECONDS));
+        verify(mockLogger).info("operation=\"async_lazy\" starter=\"true\"");
+        verify(mockLogger).info("operation=\"async_lazy\" outcome=\"success\" starter=\"true\" yielder=\"true\"");
+    }
+
+    @Test
+    public void log_duration_and_record_metrics_of_timed_operation() throws Exception {
+
+        final String name = "timed-" + UUID.randomUUID();
+        operation(name).timed().with("a", 1).initiate(mockLogger).wasSuccessful().log();
+        operation(name).timed().initiate(mockLogger).wasFailure().withMessage("bang!").log();
+
+        final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(mockLogger).info(message.capture());
+        assertTrue(message.getValue(), message.getValue().matches(
+                "operation=\"" + name + "\" outcome=\"success\" a=1 durationMs=\\d+"));
+        verify(mockLogger).error(message.capture());
+        assertTrue(message.getValue(), message.getValue().matches(
+                "operation=\"" + name + "\" outcome=\"failure\" errorMessage=\"bang!\" durationMs=\\d+"));
+
+        final OperationMetrics.Snapshot metrics = OperationMetrics.snapshotAndReset().get(name);
+        assertEquals(1, metrics.getSuccessCount());
+        assertEquals(1, metrics.getFailureCount());
+        assertTrue(metrics.getValueAtPercentile(50) <= metrics.getMaxNanos());
+        assertEquals(0, OperationMetrics.snapshot(name).getCount());
+    }
+
+    @Test
+    public void log_sampled_lines_with_count_skipped_and_always_log_failures() throws Exception {
+
+        Sampling.sample("sampled", SamplingPolicy.firstPerInterval(2, 1, TimeUnit.HOURS));
+        try {
+            for (int i = 0; i < 4; i++) {
+                operation("sampled").with("i", i).started(mockLogger).wasSuccessful().log();
+            }
+            operation("sampled").initiate(mockLogger).wasFailure().log();
+        } finally {
+            Sampling.clear("sampled");
+        }
+        operation("sampled").initiate(mockLogger).wasSuccessful().log();
+
+        verify(mockLogger).info("operation=\"sampled\" i=0 skipped=0");
+        verify(mockLogger).info("operation=\"sampled\" outcome=\"success\" i=0 skipped=0");
+        verify(mockLogger).error("operation=\"sampled\" outcome=\"failure\" errorMessage=null");
+        verify(mockLogger).info("operation=\"sampled\" outcome=\"success\"");
+        verify(mockLogger).isErrorEnabled();
+        verify(mockLogger, times(15)).isInfoEnabled();
+        verifyNoMoreInteractions(mockLogger);
+    }
+
+    @Test
+    public void encode_starting_parameters_once_per_operation() throws Exception {
+
+        final AtomicInteger renders = new AtomicInteger();
+        final Object value = new Object() {
+            @Override
+            public String toString() {
+                return "rendered " + renders.incrementAndGet();
+            }
+        };
+
+        final Operation operation = operation("encoded").with("value", value).started(mockLogger);
+        operation.logIntermediate().yielding("step", 1).log();
+        operation.wasSuccessful().log();
+
+        verify(mockLogger).info("operation=\"encoded\" value=\"rendered 1\"");
+        verify(mockLogger).info("operation=\"encoded\" value=\"rendered 1\" step=1");
+        verify(mockLogger).info("operation=\"encoded\" outcome=\"success\" value=\"rendered 1\"");
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void compute_lazy_values_only_when_logged_and_at_most_once() throws Exception {
+
+        Mockito.when(mockLogger.isDebugEnabled()).thenReturn(false);
+        final AtomicInteger computed = new AtomicInteger();
+
+        final Operation operation = operation("lazy").with("input", computed::incrementAndGet).started(mockLogger);
+        operation.logIntermediate().yielding("expensive", () -> "never").logDebug();
+        final Yield yield = operation.wasSuccessful().yielding("size", () -> 10 + computed.incrementAndGet());
+        yield.log();
+        yield.log();
+
+        verify(mockLogger).info("operation=\"lazy\" input=1");
+        verify(mockLogger, times(2)).info("operation=\"lazy\" outcome=\"success\" input=1 size=12");
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void discard_yields_without_logging_when_only_errors_are_enabled() throws Exception {
+
+        Mockito.when(mockLogger.isInfoEnabled()).thenReturn(false);
+        Mockito.when(mockLogger.isDebugEnabled()).thenReturn(false);
+        Mockito.when(mockLogger.isWarnEnabled()).thenReturn(false);
+
+        final Operation first = operation("quiet").with("a", 1).started(mockLogger);
+        final Operation second = operation("quiet").initiate(mockLogger);
+        final Yield yield = first.wasSuccessful().yielding("b", 2);
+        yield.log();
+        assertSame(yield, second.wasSuccessful());
+        first.logIntermediate().yielding("c", 3).logError();
+        second.wasFailure().log();
+
+        verify(mockLogger).error("operation=\"quiet\" c=3");
+        verify(mockLogger).error("operation=\"quiet\" outcome=\"failure\" errorMessage=null");
+    }
+
+    @Test
+    public void log_yields_to_enabled_alternative_logger_when_own_logger_is_disabled() throws Exception {
+
+        Mockito.when(mockLogger.isInfoEnabled()).thenReturn(false);
+        Mockito.when(mockLogger.isDebugEnabled()).thenReturn(false);
+        Mockito.when(mockLogger.isWarnEnabled()).thenReturn(false);
+        Mockito.when(mockLogger.isErrorEnabled()).thenReturn(false);
+        final Logger otherLogger = Mockito.mock(Logger.class);
+        Mockito.when(otherLogger.isInfoEnabled()).thenReturn(true);
+        Mockito.when(otherLogger.isDebugEnabled()).thenReturn(true);
+
+        final Operation first = operation("rerouted").with("a", 1).initiate(mockLogger);
+        first.logIntermediate().yielding("b", 2).log(otherLogger);
+        first.wasSuccessful().yielding("c", 3).log(otherLogger);
+        operation("rerouted").initiate(mockLogger).wasSuccessful().yielding("d", 4).logDebug(otherLogger);
+        operation("rerouted").initiate(mockLogger).wasSuccessful().yielding("e", 5).log();
+
+        verify(otherLogger).info("operation=\"rerouted\" a=1 b=2");
+        verify(otherLogger).info("operation=\"rerouted\" outcome=\"success\" a=1 c=3");
+        verify(otherLogger).debug("operation=\"rerouted\" outcome=\"success\" d=4");
+        verify(mockLogger, times(0)).info(any(String.class));
+    }
+
+    @Test
+    public void log_buffered_intermediates_before_failure_and_count_them_on_success() throws Exception {
+
+        Mockito.when(mockLogger.isDebugEnabled()).thenReturn(false);
+
+        final Operation failing = operation("trail").with("a", 1).bufferIntermediates(3).initiate(mockLogger);
+        failing.logIntermediate().yielding("step", 0).logInfo();
+        failing.logIntermediate().yielding("step", 1).logDebug();
+        failing.logIntermediate().yielding("step", 2).logInfo();
+        failing.logIntermediate().yielding("step", 3).logWarn();
+        verify(mockLogger, times(0)).info(any(String.class));
+        failing.wasFailure().withMessage("bang").log();
+
+        final Operation succeeding = operation("trail").bufferIntermediates(2, true).initiate(mockLogger);
+        for (int i = 0; i < 3; i++) {
+            succeeding.logIntermediate().yielding("step", i).logInfo();
+        }
+        succeeding.wasSuccessful().log();
+
+        final InOrder inOrder = Mockito.inOrder(mockLogger);
+        // DEBUG is disabled, so the DEBUG line is logged at the level of the failure
+        inOrder.verify(mockLogger).error("operation=\"trail\" step=1");
+        inOrder.verify(mockLogger).info("operation=\"trail\" a=1 step=2");
+        inOrder.verify(mockLogger).warn("operation=\"trail\" step=3");
+        inOrder.verify(mockLogger).error("operation=\"trail\" outcome=\"failure\" errorMessage=\"bang\" a=1");
+        inOrder.verify(mockLogger).info("operation=\"trail\" outcome=\"success\" intermediates=3");
+        verify(mockLogger, times(2)).info(any(String.class));
+    }
+
+    @Test
+    public void recycle_yields_and_failures_once_logged() throws Exception {
+
+        Recycling.enable(4);
+        try {
+            final Yield first = operation("first").initiate(mockLogger).wasSuccessful().yielding("a", 1);
+            first.log();
+            final Yield second = operation("second").initiate(mockLogger).wasSuccessful();
+            second.log();
+
+            assertSame(first, second);
+            verify(mockLogger).info("operation=\"first\" outcome=\"success\" a=1");
+            verify(mockLogger).info("operation=\"second\" outcome=\"success\"");
+
+            Recycling.enable(4, true);
+            final Failure failure = operation("checked").initiate(mockLogger).wasFailure();
+            failure.log();
+            try {
+                failure.withDetail("b", 2);
+                fail("expected use after log to be caught");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().startsWith("Programmer error"));
+            }
+            assertNotSame(failure, operation("checked").initiate(mockLogger).wasFailure());
+        } finally {
+            Recycling.disable();
+        }
+    }
+
+    @Test
+    public void count_batch_items_and_log_summary_with_exemplar() throws Exception {
+
+        final BatchOperation batch = BatchOperation.over(operation("import").initiate(mockLogger))
+                .failureReasons(1)
+                .exemplars(1)
+                .build();
+
+        batch.itemSucceeded();
+        batch.itemSucceeded();
+        batch.itemFailed("timeout", failure -> failure.withMessage("timed out"));
+        batch.itemFailed("timeout", failure -> failure.withMessage("timed out"));
+        batch.itemFailed("refused", failure -> failure.withMessage("refused"));
+        batch.wasSuccessful().log();
+
+        verify(mockLogger).warn(argThat(startsWith("operation=\"import\" outcome=\"failure\"")));
+        verify(mockLogger).info("operation=\"import\" outcome=\"success\" succeeded=2 failed=3 failureReasons=\"{timeout=2, other=1}\"");
+    }
+
+    @Test
+    public void measure_cost_of_logging_when_statistics_are_enabled() throws Exception {
+
+        LoggingStatistics.enable();
+        LoggingStatistics.registerMBean();
+        try {
+            LoggingStatistics.snapshotAndReset();
+            operation("measured").with("a", 1).initiate(mockLogger).wasSuccessful().log();
+            operation("measured").jsonLayout().initiate(mockLogger).wasFailure().withMessage("bang").log();
+
+            final LoggingStatistics.Snapshot statistics = LoggingStatistics.snapshot();
+            assertEquals(2, statistics.getEncodedLines());
+            assertEquals(2, statistics.getWrittenLines());
+            assertEquals(1, statistics.getLines(Level.INFO));
+            assertEquals(1, statistics.getLines(Level.ERROR));
+            assertEquals("operation=\"measured\" outcome=\"success\" a=1".length(), statistics.getKeyValueCharacters());
+            assertTrue(statistics.getJsonCharacters() > 0);
+            assertTrue(statistics.getEncodingNanos() > 0);
+
+            final ObjectName name = new ObjectName(LoggingStatistics.OBJECT_NAME);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "InfoLines"));
+            ManagementFactory.getPlatformMBeanServer().invoke(name, "reset", null, null);
+            assertEquals(0, LoggingStatistics.snapshot().getWrittenLines());
+        } finally {
+            LoggingStatistics.disable();
+            LoggingStatistics.unregisterMBean();
+        }
+    }
+
+    @Test
+    public void suppress_repeated_failures_within_window_and_summarise() throws Exception {
+
+        FailureSuppression.enable(1, TimeUnit.HOURS);
+        final Exception ex = new RuntimeException("bang!");
+        try {
+            for (int i = 0; i < 3; i++) {
+                operation("outage").initiate(mockLogger).wasFailure().throwingException(ex).log();
+            }
+            operation("outage").initiate(mockLogger).wasFailure().withMessage("other").log();
+        } finally {
+            FailureSuppression.disable();
+        }
+
+        final String failure = "operation=\"outage\" outcome=\"failure\" errorMessage=\"bang!\" exception=\"java.lang.RuntimeException: bang!\"";
+        verify(mockLogger).error(failure, ex);
+        verify(mockLogger).error("operation=\"outage\" outcome=\"failure\" errorMessage=\"other\"");
+        verify(mockLogger).error(failure + " suppressed=2");
+    }
+
+    @Test
+    public void log_each_stack_trace_once_then_reference_its_fingerprint() throws Exception {
+
+        StackTraceFingerprints.enable();
+        final List<Exception> exceptions = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                exceptions.add(new RuntimeException("bang!", new IllegalStateException("cause")));
+                operation("fingerprinted").initiate(mockLogger).wasFailure().throwingException(exceptions.get(i)).log();
+            }
+        } finally {
+            StackTraceFingerprints.disable();
+        }
+
+        final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(mockLogger).error(message.capture(), eq(exceptions.get(0)));
+        final String full = message.getValue();
+        assertTrue(full, full.matches(".* exception=\"java.lang.RuntimeException: bang!\" stackFingerprint=\"[0-9a-f]{16}\""));
+        verify(mockLogger).error(full + " causes=\"java.lang.IllegalStateException: cause\"");
+    }
+
+    @Test
+    public void journal_events_and_decode_them_as_lines() throws Exception {
+
+        final Logger journalLogger = Mockito.mock(Logger.class);
+        Mockito.when(journalLogger.getName()).thenReturn("journal.test");
+        Mockito.when(journalLogger.isInfoEnabled()).thenReturn(true);
+        Mockito.when(journalLogger.isErrorEnabled()).thenReturn(true);
+
+        final Path directory = Files.createTempDirectory("journal");
+        OperationJournal.enable(directory, 2, 64 * 1024);
+        try {
+            final Operation operation = operation("journaled").with("a", 1).with("ratio", 0.5).started(journalLogger);
+            operation.wasFailure().withMessage("bang").throwingException(new RuntimeException("bang!")).log();
+        } finally {
+            OperationJournal.disable();
+        }
+
+        final StringBuilder decoded = new StringBuilder();
+        JournalDecoder.decode(directory, null, decoded);
+        final String[] lines = decoded.toString().split(System.lineSeparator());
+        assertThat(lines[0], startsWith("logLevel=\"INFO\" time=\""));
+        assertThat(lines[0], endsWith("\" category=\"journal.test\" operation=\"journaled\" a=1 ratio=\"0.5\""));
+        assertThat(lines[1], startsWith("logLevel=\"ERROR\" time=\""));
+        assertThat(lines[1], endsWith("\" category=\"journal.test\" operation=\"journaled\" outcome=\"failure\" errorMessage=\"bang\" a=1 ratio=\"0.5\" exception=\"java.lang.RuntimeException: bang!\""));
+        assertEquals("java.lang.RuntimeException: bang!", lines[2]);
+        verify(journalLogger, times(0)).info(any(String.class));
+
+        // continues after the last segment, overwriting the oldest once the ring is full
+        OperationJournal.enable(directory, 2, 64 * 1024);
+        try {
+            for (int i = 0; i < 20000; i++) {
+                operation("repeated").with("i", i).initiate(journalLogger).wasSuccessful().log();
+            }
+        } finally {
+            OperationJournal.disable();
+        }
+
+        final StringBuilder json = new StringBuilder();
+        JournalDecoder.decode(directory, true, json);
+        final String[] jsonLines = json.toString().split(System.lineSeparator());
+        assertThat(jsonLines[0], startsWith("{\"operation\":\"repeated\",\"outcome\":\"success\",\"i\":"));
+        assertThat(jsonLines[jsonLines.length - 1], startsWith("{\"operation\":\"repeated\",\"outcome\":\"success\",\"i\":19999,\"logLevel\":\"INFO\",\"time\":"));
+        assertTrue(jsonLines.length < 20000);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void journal_intermediate_events_without_starting_parameters() throws Exception {
+
+        final Logger journalLogger = Mockito.mock(Logger.class);
+        Mockito.when(journalLogger.getName()).thenReturn("journal.test");
+        Mockito.when(journalLogger.isInfoEnabled()).thenReturn(true);
+        Mockito.when(journalLogger.isWarnEnabled()).thenReturn(true);
+        Mockito.when(journalLogger.isErrorEnabled()).thenReturn(true);
+
+        final Path directory = Files.createTempDirectory("journal");
+        OperationJournal.enable(directory, 2, 64 * 1024);
+        try {
+            final Operation operation = operation("stepping").with("a", 1).initiate(journalLogger);
+            operation.logIntermediate().yielding("step", 1).logWarn();
+            operation.logIntermediate().yielding("step", 2).logError();
+
+            final Operation buffered = operation("buffered").with("a", 2).bufferIntermediates(2).initiate(journalLogger);
+            buffered.logIntermediate().yielding("step", 3).logWarn();
+            buffered.wasFailure().withMessage("stopped").log();
+        } finally {
+            OperationJournal.disable();
+        }
+
+        final StringBuilder decoded = new StringBuilder();
+        JournalDecoder.decode(directory, null, decoded);
+        final String[] lines = decoded.toString().split(System.lineSeparator());
+        assertEquals(4, lines.length);
+        assertThat(lines[0], startsWith("logLevel=\"WARN\" time=\""));
+        assertThat(lines[0], endsWith("\" category=\"journal.test\" operation=\"stepping\" step=1"));
+        assertThat(lines[1], startsWith("logLevel=\"ERROR\" time=\""));
+        assertThat(lines[1], endsWith("\" category=\"journal.test\" operation=\"stepping\" step=2"));
+        assertThat(lines[2], endsWith("\" category=\"journal.test\" operation=\"buffered\" step=3"));
+        assertThat(lines[3], endsWith("\" category=\"journal.test\" operation=\"buffered\" outcome=\"failure\" errorMessage=\"stopped\" a=2"));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void write_lines_to_installed_file_sink() throws Exception {
+
+        final Logger sinkLogger = Mockito.mock(Logger.class);
+        Mockito.when(sinkLogger.getName()).thenReturn("sink.test");
+        Mockito.when(sinkLogger.isInfoEnabled()).thenReturn(true);
+
+        final Path file = Files.createTempFile("operations", ".log");
+        final FileLogSink sink = FileLogSink.to(file).flushInterval(5, TimeUnit.MILLISECONDS).open();
+        LogSinks.install(sink);
+        try {
+            operation("sunk").with("a", 1).initiate(sinkLogger).wasSuccessful().log();
+        } finally {
+            LogSinks.uninstall();
+            sink.close();
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Files.delete(file);
+        assertEquals(1, lines.size());
+        assertThat(lines.get(0), startsWith("logLevel=\"INFO\" time=\""));
+        assertThat(lines.get(0), endsWith("\" category=\"sink.test\" operation=\"sunk\" outcome=\"success\" a=1"));
+        verify(sinkLogger, times(0)).info(any(String.class));
+    }
+
+    @Test
+    public void carry_stack_trace_of_json_line_written_to_file_sink_in_a_field() throws Exception {
+
+        final Logger sinkLogger = Mockito.mock(Logger.class);
+        Mockito.when(sinkLogger.getName()).thenReturn("sink.test");
+        Mockito.when(sinkLogger.isErrorEnabled()).thenReturn(true);
+
+        final Path file = Files.createTempFile("operations", ".log");
+        final FileLogSink sink = FileLogSink.to(file).flushInterval(5, TimeUnit.MILLISECONDS).open();
+        LogSinks.install(sink);
+        try {
+            operation("sunk").jsonLayout().initiate(sinkLogger).wasFailure()
+                    .throwingException(new RuntimeException("bang!")).log();
+        } finally {
+            LogSinks.uninstall();
+            sink.close();
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Files.delete(file);
+        assertEquals(1, lines.size());
+        final JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("ERROR", line.get("logLevel").asText());
+        assertThat(line.get("stackTrace").asText(), startsWith("java.lang.RuntimeException: bang!" + System.lineSeparator()
+                + "\tat com.ft.membership.t.OperationTest.carry_stack_trace_of_json_line_written_to_file_sink_in_a_field"));
+    }
+
+    @Test
+    public void write_whole_lines_spanning_buffers_from_many_threads() throws Exception {
+
+        final Path file = Files.createTempFile("operations", ".log");
+        final FileLogSink sink = FileLogSink.to(file).buffers(64, 4).flushInterval(1, TimeUnit.MILLISECONDS).open();
+        final char[] padding = new char[60];
+        Arrays.fill(padding, '\u00e9');
+        final List<Thread> writers = new ArrayList<>();
+        try {
+            for (int t = 0; t < 4; t++) {
+                final int writer = t;
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        sink.write(Level.INFO, "sink.test", "writer=" + writer + " i=" + i + " padding=\"" + new String(padding) + "\"", null);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        } finally {
+            sink.close();
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Files.delete(file);
+        assertEquals(800, lines.size());
+        for (String line : lines) {
+            assertTrue(line, line.matches("logLevel=\"INFO\" time=\"[^\"]+\" category=\"sink.test\" writer=\\d i=\\d+ padding=\"\u00e9{60}\""));
+        }
+    }
+
+    @Test
+    public void log_deferred_message_rendered_at_most_once() throws Exception {
+
+        final AtomicInteger renders = new AtomicInteger();
+        final Object value = new Object() {
+            @Override
+            public String toString() {
+                return "rendered " + renders.incrementAndGet();
+            }
+        };
+
+        operation("deferred").deferredRendering()
+                .initiate(mockLogger)
+                .wasSuccessful()
+                .yielding("value", value)
+                .log();
+
+        final ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(mockLogger).info(eq("{}"), message.capture());
+        assertEquals(0, renders.get());
+        assertEquals("operation=\"deferred\" outcome=\"success\" value=\"rendered 1\"", message.getValue().toString());
+        assertEquals("operation=\"deferred\" outcome=\"success\" value=\"rendered 1\"", message.getValue().toString());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void log_deferred_failure_with_exception() throws Exception {
+
+        final Exception ex = new RuntimeException("bang!");
+        operation("deferred").deferredRendering().initiate(mockLogger).wasFailure().throwingException(ex).log();
+
+        verify(mockLogger).error(eq("{}"),
+                argThat(hasToString("operation=\"deferred\" outcome=\"failure\" errorMessage=\"bang!\" exception=\"java.lang.RuntimeException: bang!\"")),
+                eq(ex));
+    }
+
+    @Test
+    public void stamp_deferred_json_line_with_time_logged_rather_than_rendered() throws Exception {
+
+        LogClock.use(Clock.fixed(Instant.parse("2020-01-02T03:04:05.678Z"), ZoneOffset.UTC));
+        try {
+            operation("deferred").deferredRendering().jsonLayout().initiate(mockLogger).wasSuccessful().log();
+            LogClock.use(Clock.fixed(Instant.parse("2020-01-02T03:04:06.789Z"), ZoneOffset.UTC));
+        } finally {
+            LogClock.reset();
+        }
+
+        final ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(mockLogger).info(eq("{}"), message.capture());
+        assertEquals("{\"operation\":\"deferred\",\"outcome\":\"success\",\"logLevel\":\"INFO\",\"time\":\"2020-01-02T03:04:05.678Z\"}"
+                + System.lineSeparator(), message.getValue().toString());
+    }
+
     @Test
     public void log_simple_failure() throws Exception {
 
@@ -254,7 +972,7 @@ public class OperationTest {
                 .yielding("nullableResult",null)
                 .log();
 
-        verify(mockLogger, times(2)).isInfoEnabled();
+        verify(mockLogger, times(3)).isInfoEnabled();
     }
 
     @Test(expected = NullPointerException.class)
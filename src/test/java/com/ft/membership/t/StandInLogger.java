@@ -0,0 +1,189 @@
+package com.ft.membership.t;
+
+import org.slf4j.helpers.MarkerIgnoringBase;
+
+/**
+ * A stand-in slf4j logger which only keeps the length of the last line handed to it, so that tests measure the cost of
+ * building a log line rather than the cost of an appender or a mock recording its invocations.
+ */
+class StandInLogger extends MarkerIgnoringBase {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean enabled;
+    private int lastLength;
+    private long lines;
+
+    StandInLogger(final boolean enabled) {
+        this.name = "stand-in";
+        this.enabled = enabled;
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    int getLastLength() {
+        return lastLength;
+    }
+
+    private void consume(final String msg) {
+        lastLength = msg.length();
+        lines++;
+    }
+
+    private void consume(final String format, final Object arg) {
+        lastLength = format.length() + String.valueOf(arg).length();
+        lines++;
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void trace(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1);
+    }
+
+    @Override
+    public void trace(final String format, final Object... arguments) {
+        consume(format);
+    }
+
+    @Override
+    public void trace(final String msg, final Throwable t) {
+        consume(msg);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void debug(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1);
+    }
+
+    @Override
+    public void debug(final String format, final Object... arguments) {
+        consume(format);
+    }
+
+    @Override
+    public void debug(final String msg, final Throwable t) {
+        consume(msg);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void info(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void info(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void info(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1);
+    }
+
+    @Override
+    public void info(final String format, final Object... arguments) {
+        consume(format);
+    }
+
+    @Override
+    public void info(final String msg, final Throwable t) {
+        consume(msg);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void warn(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void warn(final String format, final Object... arguments) {
+        consume(format);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1);
+    }
+
+    @Override
+    public void warn(final String msg, final Throwable t) {
+        consume(msg);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void error(final String msg) {
+        consume(msg);
+    }
+
+    @Override
+    public void error(final String format, final Object arg) {
+        consume(format, arg);
+    }
+
+    @Override
+    public void error(final String format, final Object arg1, final Object arg2) {
+        consume(format, arg1);
+    }
+
+    @Override
+    public void error(final String format, final Object... arguments) {
+        consume(format);
+    }
+
+    @Override
+    public void error(final String msg, final Throwable t) {
+        consume(msg);
+    }
+}
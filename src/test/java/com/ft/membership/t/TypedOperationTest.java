@@ -0,0 +1,73 @@
+package com.ft.membership.t;
+
+import static com.ft.membership.logging.Operation.operation;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import com.ft.membership.logging.FluentOperation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.slf4j.Logger;
+
+/**
+ * Compiled in its own execution, with the FluentOperationProcessor enabled.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TypedOperationTest {
+
+    @Mock
+    Logger mockLogger;
+
+    @Before
+    public void setup() {
+        Mockito.when(mockLogger.isInfoEnabled()).thenReturn(true);
+        Mockito.when(mockLogger.isErrorEnabled()).thenReturn(true);
+        Mockito.when(mockLogger.isDebugEnabled()).thenReturn(true);
+        Mockito.when(mockLogger.isWarnEnabled()).thenReturn(true);
+    }
+
+    @FluentOperation("launch")
+    interface LaunchOp {
+        LaunchOp probe(long id);
+        LaunchOp target(String target);
+        LaunchOp manned(boolean manned);
+        LaunchOp stage(int stage);
+        LaunchOp callsign(char callsign);
+        LaunchOp thrust(float thrust);
+    }
+
+    @Test
+    public void log_typed_operation_as_the_equivalent_builder() throws Exception {
+
+        TypedOperationTest_LaunchOpOperation.operation()
+                .probe(27)
+                .target("Mars")
+                .manned(false)
+                .initiate(mockLogger)
+                .wasSuccessful()
+                .log();
+        operation("launch").with("probe", 27L).with("target", "Mars").with("manned", false)
+                .initiate(mockLogger)
+                .wasSuccessful()
+                .log();
+
+        verify(mockLogger, times(2)).info("operation=\"launch\" outcome=\"success\" probe=27 target=\"Mars\" manned=\"false\"");
+    }
+
+    @Test
+    public void log_narrow_primitives_of_typed_operation_as_before() throws Exception {
+
+        TypedOperationTest_LaunchOpOperation.operation()
+                .stage(2)
+                .callsign('x')
+                .thrust(0.1f)
+                .initiate(mockLogger)
+                .wasSuccessful()
+                .log();
+
+        verify(mockLogger).info("operation=\"launch\" outcome=\"success\" stage=2 callsign=\"x\" thrust=\"0.1\"");
+    }
+}